@@ -0,0 +1,75 @@
+package bench;
+
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+
+import gameengine.AllocationMonitor;
+import gamelogic.HeadlessRuntime;
+import gamelogic.Main;
+
+/**
+ * Checks that a running level doesn't allocate: a map is simulated headless without input, and after warming up
+ * the bytes allocated by every update and every draw into an image are measured.
+ * Exits with status 1 if an update or a draw allocated more than the budget, so it can be run by scripts.
+ */
+public class AllocationCheck {
+
+	public static final int DEFAULT_WARMUP_UPDATES = 2000; //lets the JIT compile the hot paths and the lists grow
+	public static final int DEFAULT_MEASURED_UPDATES = 5000;
+	public static final long DEFAULT_BUDGET = 1024; //in bytes per update or draw
+
+	/**
+	 *
+	 * @param args resource directory, map file, [measured updates], [budget in bytes]
+	 */
+	public static void main(String[] args) throws Exception {
+		System.setProperty("java.awt.headless", "true");
+		if(args.length < 2) {
+			System.out.println("Usage: AllocationCheck <resource directory> <map file> [updates] [budget]");
+			System.exit(2);
+		}
+		int updates = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_MEASURED_UPDATES;
+		long budget = args.length > 3 ? Long.parseLong(args[3]) : DEFAULT_BUDGET;
+
+		HeadlessRuntime runtime = new HeadlessRuntime(args[0], args[1], HeadlessRuntime.DEFAULT_SCREEN_WIDTH, HeadlessRuntime.DEFAULT_SCREEN_HEIGHT, Main.UPDATES_PER_SECOND);
+		BufferedImage image = new BufferedImage(HeadlessRuntime.DEFAULT_SCREEN_WIDTH, HeadlessRuntime.DEFAULT_SCREEN_HEIGHT, BufferedImage.TYPE_INT_RGB);
+		Graphics g = image.createGraphics(); //created once, a new graphics every frame is the window's business
+
+		for (int i = 0; i < DEFAULT_WARMUP_UPDATES; i++) {
+			restartIfFinished(runtime);
+			runtime.step();
+			runtime.getLevel().draw(g, 0.5f);
+		}
+
+		AllocationMonitor monitor = new AllocationMonitor(budget);
+		long updateTotal = 0, updateMax = 0, drawTotal = 0, drawMax = 0;
+		int failures = 0;
+		for (int i = 0; i < updates; i++) {
+			restartIfFinished(runtime); //restarting copies the snapshot of the level, it isn't measured
+			monitor.beginFrame();
+			runtime.step();
+			if(!monitor.endFrame()) failures++;
+			updateTotal += monitor.getLastFrameAllocation();
+			updateMax = Math.max(updateMax, monitor.getLastFrameAllocation());
+
+			monitor.beginFrame();
+			runtime.getLevel().draw(g, 0.5f);
+			if(!monitor.endFrame()) failures++;
+			drawTotal += monitor.getLastFrameAllocation();
+			drawMax = Math.max(drawMax, monitor.getLastFrameAllocation());
+		}
+		g.dispose();
+
+		System.out.println("Updates: [" + updates + "] Bytes per update: [" + updateTotal / updates + "] Max: [" + updateMax + "]");
+		System.out.println("Draws: [" + updates + "] Bytes per draw: [" + drawTotal / updates + "] Max: [" + drawMax + "]");
+		System.out.println("Over the budget of [" + budget + " bytes]: [" + failures + "]");
+		System.exit(failures == 0 ? 0 : 1);
+	}
+
+	/**
+	 * Restarts a finished level, so every measured update runs a level
+	 */
+	private static void restartIfFinished(HeadlessRuntime runtime) {
+		if(!runtime.getLevel().isActive()) runtime.restart();
+	}
+}
@@ -0,0 +1,121 @@
+package bench;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.PrintWriter;
+import java.util.Random;
+
+import gameengine.TileCollision;
+import gamelogic.HeadlessRuntime;
+import gamelogic.Main;
+import gamelogic.tiledMap.Map;
+
+/**
+ * Compares the tile collision search of the whole map with the broadphase (see TileCollision.findClosestObstacles())
+ * on generated maps of growing size. Prints the time per search of both.
+ */
+public class CollisionBenchmark {
+
+	public static final int[][] MAP_SIZES = { { 100, 20 }, { 400, 40 }, { 1600, 80 }, { 6400, 160 } }; //width, height in tiles
+	public static final int PROBES = 1024; //hitboxes searched around, at random positions above the ground
+	private static final long TARGET_NANOS = 500000000L; //measured time of one variant per map
+
+	/**
+	 *
+	 * @param args resource directory
+	 */
+	public static void main(String[] args) throws Exception {
+		System.setProperty("java.awt.headless", "true");
+		if(args.length < 1) {
+			System.out.println("Usage: CollisionBenchmark <resource directory>");
+			return;
+		}
+
+		for (int[] size : MAP_SIZES) {
+			File file = writeMap(size[0], size[1], 1);
+			HeadlessRuntime runtime = new HeadlessRuntime(args[0], file.getPath(), HeadlessRuntime.DEFAULT_SCREEN_WIDTH, HeadlessRuntime.DEFAULT_SCREEN_HEIGHT, Main.UPDATES_PER_SECOND);
+			Map map = runtime.getLevel().getMap();
+			float[] probes = createProbes(map, new Random(2));
+
+			//A search limit as big as the map clamps the broadphase to the whole map, the same as USE_BROADPHASE = false
+			int fullScan = Math.max(map.getWidth(), map.getHeight());
+			measure(map, probes, fullScan); //warming up
+			measure(map, probes, TileCollision.DEFAULT_SEARCH_LIMIT);
+			double fullNanos = measure(map, probes, fullScan);
+			double broadphaseNanos = measure(map, probes, TileCollision.DEFAULT_SEARCH_LIMIT);
+			System.out.println("Map: [" + size[0] + "x" + size[1] + "] Full scan: [" + (long) fullNanos + "ns] Broadphase: [" + (long) broadphaseNanos
+					+ "ns] Speedup: [" + Math.round(fullNanos / broadphaseNanos) + "x]");
+			file.delete();
+		}
+	}
+
+	/**
+	 * Searches the closest obstacles of all probes until TARGET_NANOS have passed
+	 * @return The average time of one search in nanoseconds
+	 */
+	private static double measure(Map map, float[] probes, int searchLimit) {
+		int[] closest = new int[4];
+		float movementX = 300f / Main.UPDATES_PER_SECOND, movementY = 600f / Main.UPDATES_PER_SECOND;
+		long searches = 0, checksum = 0;
+		long start = System.nanoTime();
+		long time;
+		do {
+			for (int p = 0; p < probes.length; p += 4) {
+				TileCollision.findClosestObstacles(map, probes[p], probes[p + 1], probes[p + 2], probes[p + 3], movementX, movementY, searchLimit, closest);
+				checksum += closest[TileCollision.BOT];
+			}
+			searches += probes.length / 4;
+			time = System.nanoTime() - start;
+		} while(time < TARGET_NANOS);
+		if(checksum == Long.MIN_VALUE) System.out.println(checksum); //keeps the searches from being optimized away
+		return (double) time / searches;
+	}
+
+	/**
+	 * @return left, top, right and bottom side of PROBES player sized hitboxes
+	 */
+	private static float[] createProbes(Map map, Random random) {
+		int tileSize = map.getTileSize();
+		float[] probes = new float[PROBES * 4];
+		for (int p = 0; p < probes.length; p += 4) {
+			probes[p] = random.nextInt((map.getWidth() - 1) * tileSize);
+			probes[p + 1] = random.nextInt(Math.max(1, (map.getHeight() * 4 / 5 - 2) * tileSize));
+			probes[p + 2] = probes[p] + tileSize;
+			probes[p + 3] = probes[p + 1] + tileSize;
+		}
+		return probes;
+	}
+
+	/**
+	 * Writes a map file for benchmarks: flat ground in the lowest fifth, a wall of two tiles every 10 columns
+	 * and random solid tiles in the air
+	 * @param seed The seed of the random tiles
+	 * @return The file, deleted when the program ends
+	 */
+	static File writeMap(int width, int height, long seed) throws Exception {
+		File file = File.createTempFile("benchmark", ".txt");
+		file.deleteOnExit();
+		Random random = new Random(seed);
+		int surface = height * 4 / 5;
+		PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(file)));
+		writer.println("width=" + width);
+		writer.println("height=" + height);
+		writer.println("tileSize=25");
+		for (int row = 0; row < height; row++) {
+			StringBuilder line = new StringBuilder();
+			for (int col = 0; col < width; col++) {
+				int id = 0;
+				if(row > surface) id = 6; //dirt
+				else if(row == surface) id = 7; //grass
+				else if(col % 10 == 5 && row >= surface - 2) id = 1; //wall
+				else if(row < surface - 2 && random.nextInt(50) == 0) id = 1;
+				line.append(id).append(',');
+			}
+			writer.println(line);
+		}
+		writer.println("playerPos=2," + (surface - 2));
+		writer.close();
+		return file;
+	}
+}
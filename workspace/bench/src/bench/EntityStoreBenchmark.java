@@ -0,0 +1,153 @@
+package bench;
+
+import java.io.File;
+import java.util.Random;
+
+import gameengine.EntityStore;
+import gameengine.PhysicsObject;
+import gameengine.util.IntList;
+import gamelogic.HeadlessRuntime;
+import gamelogic.Main;
+import gamelogic.enemies.Enemy;
+import gamelogic.level.Level;
+import gamelogic.tiledMap.Map;
+
+/**
+ * Compares updating walking enemies in the struct-of-arrays EntityStore with updating them as PhysicsObjects,
+ * the way enemies were simulated before. Both walk on the same generated map and turn around at walls.
+ * Prints the time per entity and tick of both.
+ */
+public class EntityStoreBenchmark {
+
+	public static final int[] ENTITY_COUNTS = { 100, 1000, 10000, 100000 };
+	public static final int MAP_WIDTH = 1600; //in tiles
+	public static final int MAP_HEIGHT = 40; //in tiles
+	private static final long TARGET_NANOS = 500000000L; //measured time of one variant per entity count
+
+	/**
+	 *
+	 * @param args resource directory
+	 */
+	public static void main(String[] args) throws Exception {
+		System.setProperty("java.awt.headless", "true");
+		if(args.length < 1) {
+			System.out.println("Usage: EntityStoreBenchmark <resource directory>");
+			return;
+		}
+		File file = CollisionBenchmark.writeMap(MAP_WIDTH, MAP_HEIGHT, 1);
+		HeadlessRuntime runtime = new HeadlessRuntime(args[0], file.getPath(), HeadlessRuntime.DEFAULT_SCREEN_WIDTH, HeadlessRuntime.DEFAULT_SCREEN_HEIGHT, Main.UPDATES_PER_SECOND);
+		Level level = runtime.getLevel();
+		float tslf = runtime.getStepSeconds();
+		System.out.println("Cores: [" + Runtime.getRuntime().availableProcessors() + "]");
+
+		for (int count : ENTITY_COUNTS) {
+			float[] positions = createPositions(level.getMap(), count, new Random(count));
+			long objectNanos = measureObjects(level, positions, tslf);
+			long storeNanos = measureStore(level.getMap(), positions, tslf, false);
+			long parallelNanos = measureStore(level.getMap(), positions, tslf, true);
+			System.out.println("Entities: [" + count + "] PhysicsObject: [" + objectNanos + "ns] EntityStore: [" + storeNanos + "ns] EntityStore in parallel: ["
+					+ parallelNanos + "ns] (per entity and tick)");
+		}
+		file.delete();
+	}
+
+	/**
+	 * @return x and y of count enemies standing on the ground, away from the walls of the map (see CollisionBenchmark.writeMap())
+	 */
+	private static float[] createPositions(Map map, int count, Random random) {
+		int tileSize = map.getTileSize();
+		int size = getEnemySize(map);
+		int surface = map.getHeight() * 4 / 5;
+		float[] positions = new float[count * 2];
+		for (int i = 0; i < count; i++) {
+			int col;
+			do {
+				col = random.nextInt(map.getWidth() - 1);
+			} while(col % 10 >= 3 && col % 10 <= 5); //an enemy is wider than one tile
+			positions[2 * i] = col * tileSize;
+			positions[2 * i + 1] = surface * tileSize - size;
+		}
+		return positions;
+	}
+
+	private static int getEnemySize(Map map) {
+		return (int) (map.getTileSize() * 1.5);
+	}
+
+	/**
+	 * Updates the enemies as PhysicsObjects until TARGET_NANOS have passed, after warming up for the same time
+	 * @return The average time per entity and tick in nanoseconds
+	 */
+	private static long measureObjects(Level level, float[] positions, float tslf) {
+		int size = getEnemySize(level.getMap());
+		Walker[] walkers = new Walker[positions.length / 2];
+		for (int i = 0; i < walkers.length; i++) {
+			walkers[i] = new Walker(positions[2 * i], positions[2 * i + 1], size, level);
+		}
+		long time = 0, ticks = 0;
+		for (int run = 0; run < 2; run++) {
+			time = 0;
+			ticks = 0;
+			while(time < TARGET_NANOS) {
+				long start = System.nanoTime();
+				for (Walker walker : walkers) {
+					walker.update(tslf);
+				}
+				time += System.nanoTime() - start;
+				ticks++;
+			}
+		}
+		return time / (ticks * walkers.length);
+	}
+
+	/**
+	 * Updates the enemies in an EntityStore until TARGET_NANOS have passed, after warming up for the same time
+	 * @return The average time per entity and tick in nanoseconds
+	 */
+	private static long measureStore(Map map, float[] positions, float tslf, boolean parallel) {
+		int size = getEnemySize(map);
+		int count = positions.length / 2;
+		EntityStore store = new EntityStore(Level.GRAVITY * Level.GRAVITY, count);
+		store.setParallel(parallel, EntityStore.DEFAULT_PARALLEL_THRESHOLD);
+		IntList all = new IntList();
+		for (int i = 0; i < count; i++) {
+			int index = store.add(positions[2 * i], positions[2 * i + 1], size, size, 0, 0, size, size); //the hitbox of a PhysicsObject
+			store.setMovementX(index, Enemy.WALK_SPEED);
+			all.add(index);
+		}
+		long time = 0, ticks = 0;
+		for (int run = 0; run < 2; run++) {
+			time = 0;
+			ticks = 0;
+			while(time < TARGET_NANOS) {
+				long start = System.nanoTime();
+				store.update(map, tslf, all);
+				Enemy.patrol(store, all);
+				time += System.nanoTime() - start;
+				ticks++;
+			}
+		}
+		return time / (ticks * count);
+	}
+
+	/**
+	 * A walking enemy as a PhysicsObject, turning around at walls like Enemy.patrol()
+	 */
+	private static class Walker extends PhysicsObject {
+
+		public Walker(float x, float y, int size, Level level) {
+			super(x, y, size, size, level);
+			movementVector.x = Enemy.WALK_SPEED;
+		}
+
+		@Override
+		public void update(float tslf) {
+			super.update(tslf);
+			if(collisionMatrix[LEF] != Map.NO_CELL) {
+				movementVector.x = Enemy.WALK_SPEED;
+			} else if(collisionMatrix[RIG] != Map.NO_CELL) {
+				movementVector.x = -Enemy.WALK_SPEED;
+			}
+		}
+	}
+}
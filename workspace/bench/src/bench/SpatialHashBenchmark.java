@@ -0,0 +1,85 @@
+package bench;
+
+import java.util.Random;
+
+import gameengine.hitbox.SpatialHash;
+import gameengine.util.IntList;
+
+/**
+ * Measures the spatial hash from 10 to 100k entities spread over a world which grows with their number.
+ * Every tick the hash is rebuilt and queried with QUERIES rectangles, the queries are compared with testing every entity.
+ * Prints the time of a rebuild per entity and the time of a query with the hash and with testing every entity.
+ */
+public class SpatialHashBenchmark {
+
+	public static final int[] ENTITY_COUNTS = { 10, 100, 1000, 10000, 100000 };
+	public static final int QUERIES = 1024; //per tick
+	public static final int TILE_SIZE = 50; //in pixels, the hash has a cell size of two tiles like the one of the level
+	public static final int AREA_PER_ENTITY = 8 * TILE_SIZE; //side of the square of the world per entity in pixels
+	private static final long TARGET_NANOS = 500000000L; //measured time of one variant per entity count
+
+	private static int found; //keeps the queries from being optimized away
+
+	public static void main(String[] args) {
+		for (int count : ENTITY_COUNTS) {
+			Random random = new Random(1);
+			float worldSize = (float) Math.sqrt(count) * AREA_PER_ENTITY;
+			float[] x = new float[count], y = new float[count];
+			for (int i = 0; i < count; i++) {
+				x[i] = random.nextFloat() * worldSize;
+				y[i] = random.nextFloat() * worldSize;
+			}
+			float[] queries = new float[QUERIES * 2];
+			for (int q = 0; q < queries.length; q++) {
+				queries[q] = random.nextFloat() * worldSize;
+			}
+			SpatialHash hash = new SpatialHash(TILE_SIZE * 2, count);
+			IntList result = new IntList();
+
+			measure(hash, x, y, queries, result, true); //warming up
+			measure(hash, x, y, queries, result, false);
+			long[] hashNanos = measure(hash, x, y, queries, result, true);
+			long[] scanNanos = measure(hash, x, y, queries, result, false);
+			System.out.println("Entities: [" + count + "] Rebuild per entity: [" + hashNanos[0] + "ns] Query: [" + hashNanos[1] + "ns] Query testing every entity: ["
+					+ scanNanos[1] + "ns]");
+		}
+		if(found == Integer.MIN_VALUE) System.out.println(found);
+	}
+
+	/**
+	 * Simulates ticks until TARGET_NANOS have passed
+	 * @param useHash true -> the hash is rebuilt and queried, false -> every entity is tested for every query
+	 * @return The average time of a rebuild per entity and of a query in nanoseconds
+	 */
+	private static long[] measure(SpatialHash hash, float[] x, float[] y, float[] queries, IntList result, boolean useHash) {
+		int size = (int) (TILE_SIZE * 1.5); //of an enemy
+		int querySize = TILE_SIZE * 3;
+		long rebuildTime = 0, queryTime = 0, ticks = 0;
+		while(rebuildTime + queryTime < TARGET_NANOS) {
+			long start = System.nanoTime();
+			if(useHash) {
+				hash.clear();
+				for (int i = 0; i < x.length; i++) {
+					hash.insert(i, x[i], y[i], size, size);
+				}
+			}
+			long rebuilt = System.nanoTime();
+			for (int q = 0; q < queries.length; q += 2) {
+				result.clear();
+				if(useHash) {
+					hash.query(queries[q], queries[q + 1], querySize, querySize, result);
+				} else {
+					for (int i = 0; i < x.length; i++) {
+						if(x[i] < queries[q] + querySize && x[i] + size > queries[q] && y[i] < queries[q + 1] + querySize && y[i] + size > queries[q + 1]) result.add(i);
+					}
+				}
+				found += result.size();
+			}
+			long end = System.nanoTime();
+			rebuildTime += rebuilt - start;
+			queryTime += end - rebuilt;
+			ticks++;
+		}
+		return new long[] { rebuildTime / (ticks * x.length), queryTime / (ticks * QUERIES) };
+	}
+}
@@ -0,0 +1,236 @@
+package gameengine;
+
+import java.util.Arrays;
+
+import gameengine.graphics.Camera;
+import gameengine.util.IntList;
+import gamelogic.tiledMap.Map;
+
+/**
+ * Levels of detail for the simulation of the entities of an EntityStore, driven by the position of the camera.
+ * Entities near the camera are fully simulated, entities in a wider band only walk between their patrol bounds
+ * and all others sleep. Sleeping entities cost nothing per tick, they are fast-forwarded when the band reaches them again.
+ * Sleeping entities are kept in linked lists per region of the map, so waking them only looks at the regions near the camera.
+ */
+public class ActivityRegions {
+
+	//Levels of detail
+	public static final int FULL = 0;
+	public static final int COARSE = 1;
+	public static final int ASLEEP = 2;
+	public static final int PARKED = 3; //fell out of the map, never simulated again
+
+	public static final int DEFAULT_ACTIVE_MARGIN = 4; //in tiles around the camera
+	public static final int DEFAULT_COARSE_MARGIN = 24; //in tiles around the camera
+	public static final int REGION_SIZE = 16; //in tiles
+	public static final int PATROL_SEARCH = REGION_SIZE / 2; //in tiles to each side, so a patrol range fits into a region
+	private static final int NONE = -1;
+
+	private EntityStore store;
+	private Map map;
+	private int activeMargin; //in pixels
+	private int coarseMargin; //in pixels
+	private double time; //simulated time in seconds
+
+	private int regionSize; //in pixels
+	private int regionCols;
+	private int regionRows;
+	private int[] regionHeads; //first sleeping entity of every region
+
+	//per entity
+	private int[] activity;
+	private double[] sleptAt; //time the entity fell asleep
+	private int[] regionOf;
+	private int[] next;
+	private int[] previous;
+	private int[] searchFailedAt; //cell the last search for patrol bounds failed in, NONE -> search again
+
+	private IntList awake = new IntList(); //all entities which are FULL or COARSE
+	private IntList swap = new IntList(); //used to rebuild awake
+	private IntList full = new IntList();
+	private IntList coarse = new IntList();
+
+	/**
+	 * All entities of the store start fully simulated
+	 * @param activeMargin Entities this many tiles around the camera are fully simulated
+	 * @param coarseMargin Entities this many tiles around the camera are coarsely simulated
+	 */
+	public ActivityRegions(EntityStore store, Map map, int activeMargin, int coarseMargin) {
+		this.store = store;
+		this.map = map;
+		this.activeMargin = activeMargin * map.getTileSize();
+		this.coarseMargin = Math.max(activeMargin, coarseMargin) * map.getTileSize();
+
+		regionSize = REGION_SIZE * map.getTileSize();
+		regionCols = (map.getWidth() + REGION_SIZE - 1) / REGION_SIZE;
+		regionRows = (map.getHeight() + REGION_SIZE - 1) / REGION_SIZE;
+		regionHeads = new int[Math.max(1, regionCols * regionRows)];
+		Arrays.fill(regionHeads, NONE);
+
+		int count = store.size();
+		activity = new int[count];
+		sleptAt = new double[count];
+		regionOf = new int[count];
+		next = new int[count];
+		previous = new int[count];
+		searchFailedAt = new int[count];
+		Arrays.fill(regionOf, NONE);
+		Arrays.fill(searchFailedAt, NONE);
+		for (int i = 0; i < count; i++) {
+			awake.add(i);
+		}
+	}
+
+	/**
+	 * Wakes the entities near the camera, puts the ones far away to sleep and simulates the awake ones
+	 * @param camera The camera the levels of detail are based on
+	 * @param tslf Time since last frame
+	 */
+	public void update(Camera camera, float tslf) {
+		time += tslf;
+
+		float fullLeft = camera.getX() - activeMargin;
+		float fullTop = camera.getY() - activeMargin;
+		float fullRight = camera.getX() + camera.getWidth() + activeMargin;
+		float fullBot = camera.getY() + camera.getHeight() + activeMargin;
+		float coarseLeft = camera.getX() - coarseMargin;
+		float coarseTop = camera.getY() - coarseMargin;
+		float coarseRight = camera.getX() + camera.getWidth() + coarseMargin;
+		float coarseBot = camera.getY() + camera.getHeight() + coarseMargin;
+
+		wakeUp(coarseLeft, coarseTop, coarseRight, coarseBot);
+
+		//Choosing the level of detail of every awake entity
+		full.clear();
+		coarse.clear();
+		swap.clear();
+		for (int e = 0; e < awake.size(); e++) {
+			int i = awake.get(e);
+			float left = store.getX(i);
+			float top = store.getY(i);
+			float right = left + store.getWidth(i);
+			float bot = top + store.getHeight(i);
+
+			if(top > map.getFullHeight() + 100) {
+				activity[i] = PARKED;
+				continue;
+			}
+			if(left < fullRight && right > fullLeft && top < fullBot && bot > fullTop) {
+				activity[i] = FULL;
+			} else if(activity[i] == COARSE || findPatrolBounds(i)) {
+				//the same test as in wakeUp(), so an entity put to sleep isn't woken up again in the next tick
+				if(overlapsPatrolRange(i, coarseLeft, coarseTop, coarseRight, coarseBot)) {
+					activity[i] = COARSE;
+				} else {
+					sleep(i);
+					continue;
+				}
+			}
+			//entities without patrol bounds (e.g. falling ones) stay fully simulated
+
+			swap.add(i);
+			if(activity[i] == FULL) full.add(i);
+			else coarse.add(i);
+		}
+		IntList awake = this.awake;
+		this.awake = swap;
+		swap = awake;
+
+		store.update(map, tslf, full);
+		store.updateCoarse(tslf, coarse);
+	}
+
+	/**
+	 * Wakes the sleeping entities whose patrol range overlaps the rectangle
+	 */
+	private void wakeUp(float left, float top, float right, float bot) {
+		//entities are sorted in by the center of their patrol range, which is at most half a region (PATROL_SEARCH) plus
+		//half the entity (smaller than a region) away from the ends of the range, so the neighbouring regions have to be checked as well
+		int minCol = Math.max(0, (int)Math.floor(left / regionSize) - 1);
+		int maxCol = Math.min(regionCols - 1, (int)Math.floor(right / regionSize) + 1);
+		int minRow = Math.max(0, (int)Math.floor(top / regionSize) - 1);
+		int maxRow = Math.min(regionRows - 1, (int)Math.floor(bot / regionSize) + 1);
+
+		for (int row = minRow; row <= maxRow; row++) {
+			for (int col = minCol; col <= maxCol; col++) {
+				int i = regionHeads[row * regionCols + col];
+				while(i != NONE) {
+					int following = next[i];
+					if(overlapsPatrolRange(i, left, top, right, bot)) {
+						removeFromRegion(i);
+						store.fastForward(i, time - sleptAt[i]);
+						activity[i] = COARSE;
+						awake.add(i);
+					}
+					i = following;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Computes the patrol bounds of an entity (see EntityStore.computePatrolBounds()).
+	 * A failed search isn't repeated while the entity stays on the ground in the same cell.
+	 */
+	private boolean findPatrolBounds(int i) {
+		if((store.getCollisionFlags(i) & EntityStore.COLLIDED_BOT) == 0) {
+			searchFailedAt[i] = NONE; //searching again once it lands
+			return false;
+		}
+		int tileSize = map.getTileSize();
+		int col = Math.min(map.getWidth() - 1, Math.max(0, (int)((store.getX(i) + store.getWidth(i) / 2) / tileSize)));
+		int row = Math.min(map.getHeight() - 1, Math.max(0, (int)((store.getY(i) + store.getHeight(i) / 2) / tileSize)));
+		int cell = map.getCell(col, row);
+		if(cell == searchFailedAt[i]) return false;
+
+		boolean found = store.computePatrolBounds(map, i, PATROL_SEARCH);
+		searchFailedAt[i] = found ? NONE : cell;
+		return found;
+	}
+
+	/**
+	 * @return true if the rectangle overlaps the area the entity walks through between its patrol bounds
+	 */
+	private boolean overlapsPatrolRange(int i, float left, float top, float right, float bot) {
+		float y = store.getY(i);
+		return store.getPatrolMinX(i) < right && store.getPatrolMaxX(i) + store.getWidth(i) > left && y < bot && y + store.getHeight(i) > top;
+	}
+
+	private void sleep(int i) {
+		activity[i] = ASLEEP;
+		sleptAt[i] = time;
+
+		//Region of the center of the patrol range
+		float centerX = (store.getPatrolMinX(i) + store.getPatrolMaxX(i) + store.getWidth(i)) / 2;
+		float centerY = store.getY(i) + store.getHeight(i) / 2;
+		int col = Math.min(regionCols - 1, Math.max(0, (int)(centerX / regionSize)));
+		int row = Math.min(regionRows - 1, Math.max(0, (int)(centerY / regionSize)));
+		int region = row * regionCols + col;
+
+		regionOf[i] = region;
+		previous[i] = NONE;
+		next[i] = regionHeads[region];
+		if(next[i] != NONE) previous[next[i]] = i;
+		regionHeads[region] = i;
+	}
+
+	private void removeFromRegion(int i) {
+		if(previous[i] != NONE) next[previous[i]] = next[i];
+		else regionHeads[regionOf[i]] = next[i];
+		if(next[i] != NONE) previous[next[i]] = previous[i];
+		regionOf[i] = NONE;
+	}
+
+	//------------------------------------Getters
+	/**
+	 *
+	 * @return The indices of all entities simulated in the last update (FULL or COARSE)
+	 */
+	public IntList getAwake() {
+		return awake;
+	}
+
+	public int getActivity(int index) {
+		return activity[index];
+	}
+}
@@ -0,0 +1,50 @@
+package gameengine;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the bytes the current thread allocates per frame.
+ * A running level should not allocate at all, so a frame above the budget is a failure (see bench.AllocationCheck).
+ */
+public final class AllocationMonitor {
+
+	public static final long DEFAULT_FRAME_BUDGET = 4096; //in bytes, covers the Graphics object the BufferStrategy creates every frame
+
+	private final com.sun.management.ThreadMXBean threadBean;
+	private final long threadId;
+	private long frameBudget;
+	private long frameStart;
+	private long lastFrameAllocation;
+
+	public AllocationMonitor() {
+		this(DEFAULT_FRAME_BUDGET);
+	}
+
+	public AllocationMonitor(long frameBudget) {
+		this.threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		this.threadId = Thread.currentThread().getId();
+		this.frameBudget = frameBudget;
+	}
+
+	public void beginFrame() {
+		frameStart = threadBean.getThreadAllocatedBytes(threadId);
+	}
+
+	/**
+	 *
+	 * @return true if the frame stayed inside the budget
+	 */
+	public boolean endFrame() {
+		lastFrameAllocation = threadBean.getThreadAllocatedBytes(threadId) - frameStart;
+		return lastFrameAllocation <= frameBudget;
+	}
+
+	//---------------------------------------------Getters
+	public long getLastFrameAllocation() {
+		return lastFrameAllocation;
+	}
+
+	public long getFrameBudget() {
+		return frameBudget;
+	}
+}
@@ -0,0 +1,518 @@
+package gameengine;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import gameengine.util.IntList;
+import gamelogic.tiledMap.Map;
+import gamelogic.tiles.Tile;
+
+/**
+ * Stores the physics state of many entities in parallel primitive arrays (one entry per entity)
+ * and simulates them with batch systems which loop linearly over these arrays.
+ * The systems behave like PhysicsObject.update(), but without one object graph per entity.
+ */
+public class EntityStore {
+	//Collision flags, one bit for every direction of TileCollision
+	public static final int COLLIDED_BOT = 1 << TileCollision.BOT;
+	public static final int COLLIDED_TOP = 1 << TileCollision.TOP;
+	public static final int COLLIDED_LEF = 1 << TileCollision.LEF;
+	public static final int COLLIDED_RIG = 1 << TileCollision.RIG;
+
+	public static final int DEFAULT_PARALLEL_THRESHOLD = 256; //below this number of entities the store is updated on the calling thread
+	private static final int PARALLEL_BATCH_SIZE = 128; //entities per task of the parallel update
+
+	//The arrays used by the collision-detection, one pair for every thread
+	private static final ThreadLocal<int[][]> COLLISION_MATRICES = ThreadLocal.withInitial(() -> new int[][] { new int[4], new int[4] });
+
+	private float gravity; //acceleration in pixels per second^2
+	private int searchLimit = TileCollision.DEFAULT_SEARCH_LIMIT;
+	private boolean parallel = true;
+	private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+	private int size;
+	private IntList allEntities = new IntList(); //indices 0 to size
+
+	//position and movement
+	private float[] x;
+	private float[] y;
+	private float[] previousX; //position before the last update, used for interpolation
+	private float[] previousY;
+	private float[] movementX;
+	private float[] movementY;
+	private int[] width;
+	private int[] height;
+
+	//hitbox, relative to the position
+	private float[] hitboxOffsetX;
+	private float[] hitboxOffsetY;
+	private int[] hitboxWidth;
+	private int[] hitboxHeight;
+
+	private int[] collisionFlags; //directions the entity collided with a tile in the last update
+	private int[] substeps; //number of substeps of the current update
+
+	//range of x positions the entity walks in (see computePatrolBounds())
+	private float[] patrolMinX;
+	private float[] patrolMaxX;
+
+	/**
+	 *
+	 * @param gravity The acceleration in y direction in pixels per second^2
+	 * @param capacity The expected number of entities
+	 */
+	public EntityStore(float gravity, int capacity) {
+		this.gravity = gravity;
+		capacity = Math.max(capacity, 1);
+		x = new float[capacity];
+		y = new float[capacity];
+		previousX = new float[capacity];
+		previousY = new float[capacity];
+		movementX = new float[capacity];
+		movementY = new float[capacity];
+		width = new int[capacity];
+		height = new int[capacity];
+		hitboxOffsetX = new float[capacity];
+		hitboxOffsetY = new float[capacity];
+		hitboxWidth = new int[capacity];
+		hitboxHeight = new int[capacity];
+		collisionFlags = new int[capacity];
+		substeps = new int[capacity];
+		patrolMinX = new float[capacity];
+		patrolMaxX = new float[capacity];
+	}
+
+	/**
+	 * Adds an entity
+	 * @param hitboxOffsetX The x position of the hitbox relative to the entity
+	 * @param hitboxOffsetY The y position of the hitbox relative to the entity
+	 * @return The index of the entity
+	 */
+	public int add(float x, float y, int width, int height, float hitboxOffsetX, float hitboxOffsetY, int hitboxWidth, int hitboxHeight) {
+		if(size == this.x.length) grow(size * 2);
+		int index = size++;
+		this.x[index] = x;
+		this.y[index] = y;
+		this.previousX[index] = x;
+		this.previousY[index] = y;
+		this.movementX[index] = 0;
+		this.movementY[index] = 0;
+		this.width[index] = width;
+		this.height[index] = height;
+		this.hitboxOffsetX[index] = hitboxOffsetX;
+		this.hitboxOffsetY[index] = hitboxOffsetY;
+		this.hitboxWidth[index] = hitboxWidth;
+		this.hitboxHeight[index] = hitboxHeight;
+		this.collisionFlags[index] = 0;
+		this.patrolMinX[index] = x;
+		this.patrolMaxX[index] = x;
+		allEntities.add(index);
+		return index;
+	}
+
+	private void grow(int capacity) {
+		x = Arrays.copyOf(x, capacity);
+		y = Arrays.copyOf(y, capacity);
+		previousX = Arrays.copyOf(previousX, capacity);
+		previousY = Arrays.copyOf(previousY, capacity);
+		movementX = Arrays.copyOf(movementX, capacity);
+		movementY = Arrays.copyOf(movementY, capacity);
+		width = Arrays.copyOf(width, capacity);
+		height = Arrays.copyOf(height, capacity);
+		hitboxOffsetX = Arrays.copyOf(hitboxOffsetX, capacity);
+		hitboxOffsetY = Arrays.copyOf(hitboxOffsetY, capacity);
+		hitboxWidth = Arrays.copyOf(hitboxWidth, capacity);
+		hitboxHeight = Arrays.copyOf(hitboxHeight, capacity);
+		collisionFlags = Arrays.copyOf(collisionFlags, capacity);
+		substeps = Arrays.copyOf(substeps, capacity);
+		patrolMinX = Arrays.copyOf(patrolMinX, capacity);
+		patrolMaxX = Arrays.copyOf(patrolMaxX, capacity);
+	}
+
+	/**
+	 * Applies the gravity to all entities, moves them and resolves their collisions with the tiles of the map.
+	 * Entities only read the map and write their own entries, so big stores are updated on all cores.
+	 * @param map The map to collide with
+	 * @param tslf Time since last frame
+	 */
+	public void update(Map map, float tslf) {
+		update(map, tslf, allEntities);
+	}
+
+	/**
+	 * Like update(), but only for some of the entities
+	 * @param entities The indices of the entities to update
+	 */
+	public void update(Map map, float tslf, IntList entities) {
+		int count = entities.size();
+		if(parallel && count >= parallelThreshold) {
+			int batches = (count + PARALLEL_BATCH_SIZE - 1) / PARALLEL_BATCH_SIZE;
+			IntStream.range(0, batches).parallel().forEach(batch -> update(map, tslf, entities, batch * PARALLEL_BATCH_SIZE, Math.min(count, (batch + 1) * PARALLEL_BATCH_SIZE)));
+		} else {
+			update(map, tslf, entities, 0, count);
+		}
+	}
+
+	/**
+	 * Updates the entities at the positions from (inclusive) to (exclusive) of the list
+	 */
+	private void update(Map map, float tslf, IntList entities, int from, int to) {
+		int maxSubsteps = prepareSubsteps(map.getTileSize(), tslf, entities, from, to);
+		for (int step = 0; step < maxSubsteps; step++) {
+			integrateGravity(tslf, step, entities, from, to);
+			collideWithTiles(map, tslf, step, entities, from, to);
+		}
+	}
+
+	/**
+	 * Saves the previous positions, resets the collision flags and computes the substeps of every entity
+	 * (see TileCollision.getSubstepCount())
+	 * @return The highest number of substeps
+	 */
+	private int prepareSubsteps(int tileSize, float tslf, IntList entities, int from, int to) {
+		int maxSubsteps = 1;
+		for (int e = from; e < to; e++) {
+			int i = entities.get(e);
+			previousX[i] = x[i];
+			previousY[i] = y[i];
+			collisionFlags[i] = 0;
+			substeps[i] = TileCollision.getSubstepCount(movementX[i], movementY[i] + gravity * tslf, tslf, tileSize);
+			if(substeps[i] > maxSubsteps) maxSubsteps = substeps[i];
+		}
+		return maxSubsteps;
+	}
+
+	/**
+	 * System: applies the gravity of one substep to every entity that has this substep
+	 */
+	private void integrateGravity(float tslf, int step, IntList entities, int from, int to) {
+		for (int e = from; e < to; e++) {
+			int i = entities.get(e);
+			if(step >= substeps[i]) continue;
+			movementY[i] += gravity * (substeps[i] == 1 ? tslf : tslf / substeps[i]);
+		}
+	}
+
+	/**
+	 * System: moves every entity that has this substep and resolves its collisions per axis
+	 */
+	private void collideWithTiles(Map map, float tslf, int step, IntList entities, int from, int to) {
+		int[][] matrices = COLLISION_MATRICES.get();
+		int[] closest = matrices[0];
+		int[] collisions = matrices[1];
+
+		for (int e = from; e < to; e++) {
+			int i = entities.get(e);
+			if(step >= substeps[i]) continue;
+			float stepTime = substeps[i] == 1 ? tslf : tslf / substeps[i];
+
+			float leftSide = x[i] + hitboxOffsetX[i];
+			float topSide = y[i] + hitboxOffsetY[i];
+			TileCollision.findClosestObstacles(map, leftSide, topSide, leftSide + hitboxWidth[i], topSide + hitboxHeight[i],
+					movementX[i] * stepTime, movementY[i] * stepTime, searchLimit, closest);
+
+			float newPositionX = x[i] + movementX[i] * stepTime;
+			float newPositionY = y[i] + movementY[i] * stepTime;
+			TileCollision.detectCollisions(map, closest,
+					newPositionX + hitboxOffsetX[i],
+					newPositionY + hitboxOffsetY[i],
+					newPositionX + (hitboxOffsetX[i] + hitboxWidth[i]),
+					newPositionY + (hitboxOffsetY[i] + hitboxHeight[i]),
+					collisions);
+
+			//Collision-handling
+			int bot = collisions[TileCollision.BOT];
+			if(bot != Map.NO_CELL) {
+				y[i] = map.getHitboxY(bot) - (hitboxOffsetY[i] + hitboxHeight[i]);
+				movementY[i] = 0;
+				collisionFlags[i] |= COLLIDED_BOT;
+			}
+			int top = collisions[TileCollision.TOP];
+			if(top != Map.NO_CELL) {
+				y[i] = (map.getHitboxY(top) + map.getHitboxHeight(top)) - hitboxOffsetY[i];
+				movementY[i] = 0;
+				collisionFlags[i] |= COLLIDED_TOP;
+			}
+			int lef = collisions[TileCollision.LEF];
+			if(lef != Map.NO_CELL) {
+				x[i] = (map.getHitboxX(lef) + map.getHitboxWidth(lef)) - hitboxOffsetX[i];
+				movementX[i] = 0;
+				collisionFlags[i] |= COLLIDED_LEF;
+			}
+			int rig = collisions[TileCollision.RIG];
+			if(rig != Map.NO_CELL) {
+				x[i] = map.getHitboxX(rig) - (hitboxOffsetX[i] + hitboxWidth[i]);
+				movementX[i] = 0;
+				collisionFlags[i] |= COLLIDED_RIG;
+			}
+
+			x[i] += movementX[i] * stepTime;
+			y[i] += movementY[i] * stepTime;
+		}
+	}
+
+	/**
+	 * System: cheap replacement of update() for entities far away from the camera.
+	 * The entities only walk between their patrol bounds, without gravity and tile collisions.
+	 * Reaching a bound is reported like a collision with a wall, so the game logic can react the same way.
+	 * @param entities The indices of the entities to update, all with computed patrol bounds
+	 */
+	public void updateCoarse(float tslf, IntList entities) {
+		for (int e = 0; e < entities.size(); e++) {
+			int i = entities.get(e);
+			previousX[i] = x[i];
+			previousY[i] = y[i];
+			collisionFlags[i] = 0;
+
+			x[i] += movementX[i] * tslf;
+			if(x[i] <= patrolMinX[i] && movementX[i] <= 0) {
+				x[i] = patrolMinX[i];
+				movementX[i] = 0;
+				collisionFlags[i] |= COLLIDED_LEF;
+			} else if(x[i] >= patrolMaxX[i] && movementX[i] >= 0) {
+				x[i] = patrolMaxX[i];
+				movementX[i] = 0;
+				collisionFlags[i] |= COLLIDED_RIG;
+			}
+		}
+	}
+
+	/**
+	 * Computes the range of x positions an entity standing on the ground can walk in
+	 * before it hits a wall on both sides.
+	 * @param maxTiles The maximum number of tiles searched for a wall in each direction
+	 * @return false if the entity isn't standing on the ground, the ground ends before a wall
+	 * or there is no wall within maxTiles (the bounds are unchanged in this case)
+	 */
+	public boolean computePatrolBounds(Map map, int index, int maxTiles) {
+		if((collisionFlags[index] & COLLIDED_BOT) == 0) return false;
+
+		int tileSize = map.getTileSize();
+		float leftSide = x[index] + hitboxOffsetX[index];
+		float topSide = y[index] + hitboxOffsetY[index];
+		float rightSide = leftSide + hitboxWidth[index];
+		float botSide = topSide + hitboxHeight[index];
+
+		int leftCol = (int)Math.floor(leftSide / tileSize);
+		int rightCol = (int)Math.ceil(rightSide / tileSize) - 1;
+		int topRow = Math.max(0, (int)Math.floor(topSide / tileSize));
+		int botRow = (int)Math.ceil(botSide / tileSize) - 1;
+		int groundRow = botRow + 1;
+		if(groundRow >= map.getHeight() || botRow < 0) return false;
+
+		//Searching the wall on the left
+		int wall = Map.NO_CELL;
+		for (int col = leftCol - 1; col >= Math.max(0, leftCol - maxTiles) && wall == Map.NO_CELL; col--) {
+			wall = findWall(map, col, topRow, botRow);
+			if(wall == Map.NO_CELL && !map.getTile(col, groundRow).isSolid()) return false;
+		}
+		if(wall == Map.NO_CELL) return false;
+		float minX = (map.getHitboxX(wall) + map.getHitboxWidth(wall)) - hitboxOffsetX[index];
+
+		//Searching the wall on the right
+		wall = Map.NO_CELL;
+		for (int col = rightCol + 1; col <= Math.min(map.getWidth() - 1, rightCol + maxTiles) && wall == Map.NO_CELL; col++) {
+			wall = findWall(map, col, topRow, botRow);
+			if(wall == Map.NO_CELL && !map.getTile(col, groundRow).isSolid()) return false;
+		}
+		if(wall == Map.NO_CELL) return false;
+		float maxX = map.getHitboxX(wall) - (hitboxOffsetX[index] + hitboxWidth[index]);
+
+		patrolMinX[index] = Math.min(minX, x[index]);
+		patrolMaxX[index] = Math.max(maxX, x[index]);
+		return true;
+	}
+
+	/**
+	 * @return The cell of the first solid tile of the column between the rows (inclusive), Map.NO_CELL if there is none
+	 */
+	private int findWall(Map map, int col, int topRow, int botRow) {
+		for (int row = topRow; row <= botRow; row++) {
+			Tile tile = map.getTile(col, row);
+			if(tile.isSolid() && tile.hasHitbox()) return map.getCell(col, row);
+		}
+		return Map.NO_CELL;
+	}
+
+	/**
+	 * Moves an entity to the position it would have after walking between its patrol bounds
+	 * for the given time, without simulating the single ticks
+	 * @param time The time in seconds
+	 */
+	public void fastForward(int index, double time) {
+		float speed = Math.abs(movementX[index]);
+		double range = patrolMaxX[index] - patrolMinX[index];
+		if(speed == 0 || range <= 0) return;
+
+		//Distance on a loop of length 2 * range: walking right from 0 to range, then left back to 0
+		double distance = x[index] - patrolMinX[index];
+		if(movementX[index] < 0) distance = 2 * range - distance;
+		distance = (distance + speed * time) % (2 * range);
+
+		if(distance <= range) {
+			x[index] = (float)(patrolMinX[index] + distance);
+			movementX[index] = speed;
+		} else {
+			x[index] = (float)(patrolMinX[index] + 2 * range - distance);
+			movementX[index] = -speed;
+		}
+		previousX[index] = x[index];
+		previousY[index] = y[index];
+	}
+
+	/**
+	 * System: finds the entities whose hitbox overlaps the given rectangle
+	 * @param candidates The indices of the entities to test (e.g. found with a SpatialHash)
+	 * @param result The indices of the overlapping entities are added to this list
+	 * @return The number of overlapping entities
+	 */
+	public int findHitboxOverlaps(float x, float y, float width, float height, IntList candidates, IntList result) {
+		int found = 0;
+		for (int c = 0; c < candidates.size(); c++) {
+			int i = candidates.get(c);
+			float hitboxX = this.x[i] + hitboxOffsetX[i];
+			float hitboxY = this.y[i] + hitboxOffsetY[i];
+			if(x < hitboxX + hitboxWidth[i] && x + width > hitboxX && y < hitboxY + hitboxHeight[i] && y + height > hitboxY) {
+				result.add(i);
+				found++;
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Enables updating the store in parallel, once there are at least threshold entities
+	 * @param parallel false -> the store is always updated on the calling thread
+	 * @param threshold The minimum number of entities for the parallel update
+	 */
+	public void setParallel(boolean parallel, int threshold) {
+		this.parallel = parallel;
+		this.parallelThreshold = threshold;
+	}
+
+	/**
+	 * Sets how many tiles beyond the movement of one tick are searched for the closest obstacles
+	 */
+	public void setSearchLimit(int searchLimit) {
+		this.searchLimit = searchLimit;
+	}
+
+	/**
+	 * Copies the state of all entities, used for restarting a level (see restore())
+	 * @return A store with the same entities, it is never updated
+	 */
+	public EntityStore copy() {
+		EntityStore copy = new EntityStore(gravity, size);
+		copy.restore(this);
+		return copy;
+	}
+
+	/**
+	 * Sets the state of all entities to the state of another store, indices stay valid
+	 * @param snapshot A copy of this store (see copy())
+	 */
+	public void restore(EntityStore snapshot) {
+		if(x.length < snapshot.size) grow(snapshot.size);
+		int count = snapshot.size;
+		System.arraycopy(snapshot.x, 0, x, 0, count);
+		System.arraycopy(snapshot.y, 0, y, 0, count);
+		System.arraycopy(snapshot.previousX, 0, previousX, 0, count);
+		System.arraycopy(snapshot.previousY, 0, previousY, 0, count);
+		System.arraycopy(snapshot.movementX, 0, movementX, 0, count);
+		System.arraycopy(snapshot.movementY, 0, movementY, 0, count);
+		System.arraycopy(snapshot.width, 0, width, 0, count);
+		System.arraycopy(snapshot.height, 0, height, 0, count);
+		System.arraycopy(snapshot.hitboxOffsetX, 0, hitboxOffsetX, 0, count);
+		System.arraycopy(snapshot.hitboxOffsetY, 0, hitboxOffsetY, 0, count);
+		System.arraycopy(snapshot.hitboxWidth, 0, hitboxWidth, 0, count);
+		System.arraycopy(snapshot.hitboxHeight, 0, hitboxHeight, 0, count);
+		System.arraycopy(snapshot.collisionFlags, 0, collisionFlags, 0, count);
+		System.arraycopy(snapshot.substeps, 0, substeps, 0, count);
+		System.arraycopy(snapshot.patrolMinX, 0, patrolMinX, 0, count);
+		System.arraycopy(snapshot.patrolMaxX, 0, patrolMaxX, 0, count);
+		size = count;
+		allEntities.clear();
+		for (int i = 0; i < size; i++) {
+			allEntities.add(i);
+		}
+	}
+
+	public void setMovementX(int index, float movementX) {
+		this.movementX[index] = movementX;
+	}
+
+	//------------------------------------Getters
+	public int size() {
+		return size;
+	}
+
+	public float getX(int index) {
+		return x[index];
+	}
+
+	public float getY(int index) {
+		return y[index];
+	}
+
+	/**
+	 *
+	 * @param alpha How far the time has advanced from the last update to the next one (0 - 1)
+	 * @return The x position between the last two updates
+	 */
+	public float getInterpolatedX(int index, float alpha) {
+		return previousX[index] + (x[index] - previousX[index]) * alpha;
+	}
+
+	/**
+	 *
+	 * @param alpha How far the time has advanced from the last update to the next one (0 - 1)
+	 * @return The y position between the last two updates
+	 */
+	public float getInterpolatedY(int index, float alpha) {
+		return previousY[index] + (y[index] - previousY[index]) * alpha;
+	}
+
+	public float getMovementX(int index) {
+		return movementX[index];
+	}
+
+	public float getMovementY(int index) {
+		return movementY[index];
+	}
+
+	public int getWidth(int index) {
+		return width[index];
+	}
+
+	public int getHeight(int index) {
+		return height[index];
+	}
+
+	public float getHitboxX(int index) {
+		return x[index] + hitboxOffsetX[index];
+	}
+
+	public float getHitboxY(int index) {
+		return y[index] + hitboxOffsetY[index];
+	}
+
+	public int getHitboxWidth(int index) {
+		return hitboxWidth[index];
+	}
+
+	public int getHitboxHeight(int index) {
+		return hitboxHeight[index];
+	}
+
+	public int getCollisionFlags(int index) {
+		return collisionFlags[index];
+	}
+
+	public float getPatrolMinX(int index) {
+		return patrolMinX[index];
+	}
+
+	public float getPatrolMaxX(int index) {
+		return patrolMaxX[index];
+	}
+}
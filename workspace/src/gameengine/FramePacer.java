@@ -0,0 +1,88 @@
+package gameengine;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Waits at the end of every frame, so the game runs with a target frame rate instead of as fast as possible.
+ * The frames follow a fixed grid of deadlines: a frame which ends late doesn't move the following deadlines,
+ * so the rate doesn't drift. A frame which misses its deadline by more than a whole frame (e.g. after a hitch or when
+ * showing the frame already waited for the vertical sync) restarts the grid instead of rushing the missed frames.
+ * Most of the wait is slept. The last part is spun, because a sleep can wake up late; its length follows how late
+ * the recent sleeps woke up.
+ */
+public class FramePacer {
+
+	public static final int UNCAPPED = 0;
+	public static final long MIN_SPIN_NANOS = 100000;
+	public static final long MAX_SPIN_NANOS = 2000000;
+
+	private long frameNanos; //0 -> uncapped
+	private long deadline; //end of the current frame
+	private long spinNanos = MAX_SPIN_NANOS; //adapted in sleep()
+
+	/**
+	 *
+	 * @param framesPerSecond The target frame rate, UNCAPPED -> no waiting
+	 */
+	public FramePacer(int framesPerSecond) {
+		setTargetFps(framesPerSecond);
+	}
+
+	/**
+	 * Starts a new grid of deadlines at the current time, e.g. after the game was paused
+	 */
+	public void reset() {
+		deadline = System.nanoTime();
+	}
+
+	/**
+	 * Waits until the deadline of the current frame, called once per frame after it was shown
+	 */
+	public void endFrame() {
+		if(frameNanos == 0) return;
+		deadline += frameNanos;
+		long now = System.nanoTime();
+		if(now - deadline > frameNanos) {
+			deadline = now; //too late, the missed frames are dropped
+			return;
+		}
+
+		while(deadline - now > spinNanos) {
+			sleep(deadline - now - spinNanos);
+			now = System.nanoTime();
+		}
+		while(deadline - System.nanoTime() > 0) {
+			Thread.onSpinWait();
+		}
+	}
+
+	/**
+	 * Sleeps and adapts the spun part of the wait to how late the sleep woke up
+	 */
+	private void sleep(long nanos) {
+		long start = System.nanoTime();
+		LockSupport.parkNanos(nanos);
+		long late = System.nanoTime() - start - nanos;
+		if(late > spinNanos) spinNanos = late; //the next sleep might be as late
+		else spinNanos += (late - spinNanos) / 16; //slowly back to shorter spins
+		spinNanos = Math.max(MIN_SPIN_NANOS, Math.min(MAX_SPIN_NANOS, spinNanos));
+	}
+
+	//------------------------------------Setters and Getters
+	/**
+	 *
+	 * @param framesPerSecond The target frame rate, UNCAPPED -> no waiting
+	 */
+	public void setTargetFps(int framesPerSecond) {
+		frameNanos = framesPerSecond <= 0 ? 0 : 1000000000L / framesPerSecond;
+		reset();
+	}
+
+	/**
+	 *
+	 * @return The target frame rate, UNCAPPED -> no waiting
+	 */
+	public int getTargetFps() {
+		return frameNanos == 0 ? UNCAPPED : (int) Math.round(1000000000.0 / frameNanos);
+	}
+}
@@ -6,6 +6,8 @@ package gameengine;
 import java.awt.Graphics;
 import java.awt.image.BufferStrategy;
 
+import gameengine.graphics.FrameExchange;
+import gameengine.graphics.FrameSnapshot;
 import gameengine.graphics.MyWindow;
 import gameengine.input.KeyboardInputManager;
 import gameengine.input.MouseInputManager;
@@ -16,7 +18,19 @@ import gameengine.input.MouseInputManager;
  *
  */
 public abstract class GameBase {
+	public static final int DEFAULT_MAX_CATCH_UP_STEPS = 5;
+	public static final int DEFAULT_TARGET_FPS = 60;
+	
 	protected MyWindow window;
+	
+	//Fixed-timestep -> update() is always called with the same tslf, independent of the frame rate
+	private boolean fixedTimestep = false;
+	private int updatesPerSecond;
+	private long stepNanos;
+	private int maxCatchUpSteps = DEFAULT_MAX_CATCH_UP_STEPS;
+	
+	private FramePacer framePacer = new FramePacer(DEFAULT_TARGET_FPS);
+	private boolean renderThread = false; //simulation and rendering on separate threads
 
 	//-----------------------------------------------ABSTRACT METHODS FOR SUB-CLASS
 	public abstract void init();
@@ -25,12 +39,70 @@ public abstract class GameBase {
 	//-----------------------------------------------END ABSTRACT METHODS
 
 	/**
-	 * Creates a new window and starts the game loop
+	 * Draws the game between two updates. Sub-classes which interpolate their objects override this method.
+	 * @param graphics The graphics to draw on
+	 * @param alpha How far the time has advanced from the last update to the next one (0 - 1)
+	 */
+	public void draw(Graphics graphics, float alpha) {
+		draw(graphics);
+	}
+
+	/**
+	 * Fills a snapshot with everything that is drawn, used instead of draw() if there is a render thread.
+	 * Called on the simulation thread at the end of every update, the snapshot is drawn by the render thread.
+	 * Sub-classes which support the render thread override this method.
+	 * @param frame An empty snapshot
+	 * @param alpha How far the time has advanced from the last update to the next one (0 - 1)
+	 */
+	public void submit(FrameSnapshot frame, float alpha) {}
+
+	/**
+	 * Simulates the game with a fixed rate, independent of the rendering.
+	 * Must be called before start()
+	 * @param updatesPerSecond The number of updates per second
+	 * @param maxCatchUpSteps The maximum number of updates per frame, after that the remaining time is dropped
+	 */
+	public void setFixedTimestep(int updatesPerSecond, int maxCatchUpSteps) {
+		this.fixedTimestep = true;
+		this.updatesPerSecond = updatesPerSecond;
+		this.stepNanos = 1000000000L / updatesPerSecond;
+		this.maxCatchUpSteps = maxCatchUpSteps;
+	}
+
+	/**
+	 * Limits the frame rate, the game loop waits after every frame instead of rendering as fast as possible.
+	 * With a vertical sync, which already blocks when a frame is shown, the rate of the display or UNCAPPED fit best.
+	 * Must be called before start()
+	 * @param framesPerSecond The target frame rate, FramePacer.UNCAPPED -> no limit
+	 */
+	public void setTargetFps(int framesPerSecond) {
+		framePacer.setTargetFps(framesPerSecond);
+	}
+
+	/**
+	 * Runs the simulation and the rendering on separate threads, so a slow frame doesn't delay the updates.
+	 * The simulation publishes a snapshot (see submit()) after every update and the render thread draws the latest one,
+	 * the snapshots are not interpolated. Needs a fixed timestep, whose rate the simulation thread keeps on its own,
+	 * start() throws an IllegalStateException without one.
+	 * Must be called before start()
+	 */
+	public void setRenderThread(boolean renderThread) {
+		this.renderThread = renderThread;
+	}
+
+	public boolean isRenderThread() {
+		return renderThread;
+	}
+
+	/**
+	 * Creates a new window and starts the game loop.
+	 * While the window is not active the game is paused and the loop blocks until it is activated again
 	 * @param title The title of the window
 	 * @param width The width of the window
 	 * @param height The height of the window
 	 */
 	public void start(String title, int width, int height) {
+		if(renderThread && !fixedTimestep) throw new IllegalStateException("The render thread needs a fixed timestep (see setFixedTimestep())");
 		window = new MyWindow(title, width, height);
 
 		//Adding inputManagers to window
@@ -45,29 +117,126 @@ public abstract class GameBase {
 		long StartOfGame = System.currentTimeMillis();
 		System.out.println("Time needed for initialization: [" + (StartOfGame - StartOfInit) + "ms]");
 		
-		long lastFrame = System.currentTimeMillis();
+		if(renderThread) {
+			runWithRenderThread();
+		} else {
+			run();
+		}
+	}
+
+	/**
+	 * The game loop with updates and rendering on the current thread
+	 */
+	private void run() {
+		float stepSeconds = stepNanos / 1000000000f;
 
 		while(true) {
-			lastFrame = System.currentTimeMillis();
+			try {
+				window.awaitActive();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			long lastFrame = System.nanoTime();
+			long accumulator = 0;
+			framePacer.reset();
 			while(window.isActive()) {
 				//Calculating time since last frame
-				long thisFrame = System.currentTimeMillis();
-				float tslf = (float)(thisFrame - lastFrame) / 1000f;
+				long thisFrame = System.nanoTime();
+				long frameTime = thisFrame - lastFrame;
 				lastFrame = thisFrame;
 
-				update(tslf); //Calling method update() in the sub-class 
-				BufferStrategy bs = window.beginDrawing();
-				do{
-					do{
-						Graphics g = bs.getDrawGraphics();
-						g.translate(window.getInsetX(), window.getInsetY());
-						draw(g); //Calling method draw() in the sub-class
-						g.dispose();
-					}while(bs.contentsLost());
-					bs.show();
-				}while(bs.contentsLost());
+				float alpha = 1;
+				if(fixedTimestep) {
+					accumulator += frameTime;
+					int steps = 0;
+					while(accumulator >= stepNanos && steps < maxCatchUpSteps) {
+						update(stepSeconds); //Calling method update() in the sub-class 
+						accumulator -= stepNanos;
+						steps++;
+					}
+					//The time that could not be caught up is dropped, the game slows down instead of spiraling
+					if(accumulator >= stepNanos) accumulator %= stepNanos;
+					alpha = (float)accumulator / stepNanos;
+				} else {
+					update(frameTime / 1000000000f); //Calling method update() in the sub-class 
+				}
 				
+				show(null, alpha);
+				framePacer.endFrame();
 			}
 		}
 	}
+
+	/**
+	 * The game loop of the simulation on the current thread, the rendering runs on a new thread
+	 */
+	private void runWithRenderThread() {
+		final FrameExchange frames = new FrameExchange();
+		Thread renderer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				render(frames);
+			}
+		}, "Render");
+		renderer.setDaemon(true);
+		renderer.start();
+
+		FramePacer tickPacer = new FramePacer(updatesPerSecond); //missed updates are dropped after one step
+		float stepSeconds = stepNanos / 1000000000f;
+		while(true) {
+			try {
+				window.awaitActive();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			tickPacer.reset();
+			while(window.isActive()) {
+				update(stepSeconds); //Calling method update() in the sub-class
+				FrameSnapshot frame = frames.getBack();
+				frame.clear();
+				submit(frame, 1); //Calling method submit() in the sub-class
+				frames.publish();
+				tickPacer.endFrame();
+			}
+		}
+	}
+
+	/**
+	 * The loop of the render thread, draws the latest snapshot of the simulation
+	 */
+	private void render(FrameExchange frames) {
+		while(true) {
+			try {
+				window.awaitActive();
+			} catch (InterruptedException e) {
+				return;
+			}
+			framePacer.reset();
+			while(window.isActive()) {
+				FrameSnapshot frame = frames.acquire();
+				show(frame, 1);
+				framePacer.endFrame();
+			}
+		}
+	}
+
+	/**
+	 * Draws a frame and shows it
+	 * @param frame The snapshot to draw, null -> draw() is called
+	 */
+	private void show(FrameSnapshot frame, float alpha) {
+		BufferStrategy bs = window.beginDrawing();
+		do{
+			do{
+				Graphics g = bs.getDrawGraphics();
+				g.translate(window.getInsetX(), window.getInsetY());
+				if(frame != null) frame.draw(g);
+				else draw(g, alpha); //Calling method draw() in the sub-class
+				g.dispose();
+			}while(bs.contentsLost());
+			bs.show();
+		}while(bs.contentsLost());
+	}
 }
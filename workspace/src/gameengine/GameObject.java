@@ -2,6 +2,7 @@ package gameengine;
 
 import java.awt.Graphics;
 
+import gameengine.graphics.RenderQueue;
 import gameengine.maths.Vector2D;
 
 public class GameObject {
@@ -28,6 +29,21 @@ public class GameObject {
 	
 	public void draw (Graphics g) {};
 	
+	/**
+	 * Draws the object between two updates
+	 * @param g The graphics to draw on
+	 * @param alpha How far the time has advanced from the last update to the next one (0 - 1)
+	 */
+	public void draw (Graphics g, float alpha) {
+		draw(g);
+	}
+	
+	/**
+	 * Submits the draw commands of the object to a render queue instead of drawing it immediately
+	 * @param alpha How far the time has advanced from the last update to the next one (0 - 1)
+	 */
+	public void submit (RenderQueue queue, float alpha) {};
+	
 	
 	//------------------------------------Getters
 	public float getX() {
@@ -4,69 +4,104 @@ import gameengine.GameObject;
 import gameengine.hitbox.RectHitbox;
 import gameengine.maths.Vector2D;
 import gamelogic.level.Level;
+import gamelogic.tiledMap.Map;
 import gamelogic.tiles.Tile;
 
 public class PhysicsObject extends GameObject {
     //Used for collision
-    public static final int BOT = 0;
-    public static final int TOP = 1;
-    public static final int LEF = 2;
-    public static final int RIG = 3;
+    public static final int BOT = TileCollision.BOT;
+    public static final int TOP = TileCollision.TOP;
+    public static final int LEF = TileCollision.LEF;
+    public static final int RIG = TileCollision.RIG;
 
     protected Vector2D movementVector;
+    protected Vector2D previousPosition; //position before the last update, used for interpolation
     protected RectHitbox hitbox;
-    protected Tile[] collisionMatrix;
-    protected Tile[] closestMatrix;
+    protected int[] collisionMatrix; //cells of the map, Map.NO_CELL -> no collision
+    protected int[] closestMatrix;
+    private int[] sweepMatrix; //collects the first collision in every direction over all substeps
+    protected int searchLimit = TileCollision.DEFAULT_SEARCH_LIMIT;
     private Level level;
 
-    protected boolean isInContact(Class<? extends Tile> tileType) {
-        for(int i = 0; i < level.getMap().getWidth(); i++) {
-            for(int j = 0; j < level.getMap().getHeight(); j++) {
-                Tile tile = level.getMap().getTiles()[i][j];
-                if(tile != null && tileType.isInstance(tile)) {
-                    if(tile.getHitbox() != null && tile.getHitbox().isIntersecting(this.hitbox)) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
-    }
+    //Tiles touched in the last tick
+    protected int contactMask; //contact types of all touched tiles (see Tile.getContactType())
+    protected int[] contacts; //cells of the map
+    protected int contactCount;
     
     public PhysicsObject(float x, float y, int width, int height, Level level) {
         super(x, y, width, height);
         this.level = level;
         this.movementVector = new Vector2D();
+        this.previousPosition = new Vector2D(x, y);
         this.hitbox = new RectHitbox(this, 0, 0, width, height);
-        this.collisionMatrix = new Tile[4];
-        this.closestMatrix = new Tile[4];
+        this.collisionMatrix = new int[] { Map.NO_CELL, Map.NO_CELL, Map.NO_CELL, Map.NO_CELL };
+        this.closestMatrix = new int[] { Map.NO_CELL, Map.NO_CELL, Map.NO_CELL, Map.NO_CELL };
+        this.sweepMatrix = new int[4];
+        this.contacts = new int[8];
     }
 
     @Override
     public void update(float tslf) {
+        savePreviousPosition();
+
+        int substeps = getSubstepCount(tslf);
+        if(substeps == 1) {
+            step(tslf);
+        } else {
+            //Sweeping the hitbox through the tile grid in steps smaller than a tile, so no tile can be skipped
+            float stepTime = tslf / substeps;
+            for (int i = 0; i < sweepMatrix.length; i++) sweepMatrix[i] = Map.NO_CELL;
+            for (int step = 0; step < substeps; step++) {
+                step(stepTime);
+                for (int i = 0; i < sweepMatrix.length; i++) {
+                    if(sweepMatrix[i] == Map.NO_CELL) sweepMatrix[i] = collisionMatrix[i];
+                }
+            }
+            System.arraycopy(sweepMatrix, 0, collisionMatrix, 0, sweepMatrix.length);
+        }
+        
+        updateContacts();
+    }
+
+    /**
+     * 
+     * @param tslf Time since last frame
+     * @return The number of substeps for this tick (see TileCollision.getSubstepCount())
+     */
+    protected int getSubstepCount(float tslf) {
+        float movementY = movementVector.y + (Level.GRAVITY * Level.GRAVITY) * tslf;
+        return TileCollision.getSubstepCount(movementVector.x, movementY, tslf, level.getMap().getTileSize());
+    }
+
+    /**
+     * Moves the object by one (sub-)step and resolves the collisions per axis
+     * @param tslf The time of this step
+     */
+    private void step(float tslf) {
         movementVector.y += (Level.GRAVITY * Level.GRAVITY) * tslf;
 
         updateCollisionMatrix(tslf); // checking collision based on the new position -> current movement Vector
 
         //Collision-handling 
-        Tile bot = collisionMatrix[BOT];
-        if(bot != null) {
-            position.y = bot.getHitbox().getY() - (hitbox.getOffsetY() + hitbox.getHeight());
+        Map map = level.getMap();
+        int bot = collisionMatrix[BOT];
+        if(bot != Map.NO_CELL) {
+            position.y = map.getHitboxY(bot) - (hitbox.getOffsetY() + hitbox.getHeight());
             movementVector.y = 0;
         }
-        Tile top = collisionMatrix[TOP];
-        if(top != null) {
-            position.y = (top.getHitbox().getY() + top.getHitbox().getHeight()) - hitbox.getOffsetY();
+        int top = collisionMatrix[TOP];
+        if(top != Map.NO_CELL) {
+            position.y = (map.getHitboxY(top) + map.getHitboxHeight(top)) - hitbox.getOffsetY();
             movementVector.y = 0;
         }
-        Tile lef = collisionMatrix[LEF];
-        if(lef != null) {
-            position.x = (lef.getHitbox().getX() + lef.getHitbox().getWidth()) - hitbox.getOffsetX();
+        int lef = collisionMatrix[LEF];
+        if(lef != Map.NO_CELL) {
+            position.x = (map.getHitboxX(lef) + map.getHitboxWidth(lef)) - hitbox.getOffsetX();
             movementVector.x = 0;
         }
-        Tile rig = collisionMatrix[RIG];
-        if(rig != null) {
-            position.x = rig.getHitbox().getX() - (hitbox.getOffsetX() + hitbox.getWidth());
+        int rig = collisionMatrix[RIG];
+        if(rig != Map.NO_CELL) {
+            position.x = map.getHitboxX(rig) - (hitbox.getOffsetX() + hitbox.getWidth());
             movementVector.x = 0;
         }
 
@@ -76,97 +111,131 @@ public class PhysicsObject extends GameObject {
         hitbox.update(); // -> saving old position
     }
 
-    public void updateCollisionMatrix(float tslf) {
-        Vector2D newPositon = new Vector2D(getX(), getY());
-        newPositon.x += movementVector.x * tslf;
-        newPositon.y += movementVector.y * tslf;
+    /**
+     * Saves the current position as the start point of the interpolation for this tick
+     */
+    protected void savePreviousPosition() {
+        previousPosition.x = position.x;
+        previousPosition.y = position.y;
+    }
 
-        //Finding the closest obstacles to the player in all 4 directions;
-        float closestBot = Float.MAX_VALUE, closestTop = Float.MAX_VALUE, closestLef = Float.MAX_VALUE, closestRig = Float.MAX_VALUE;
-        Tile bot = null, top = null, lef = null, rig = null;
+    /**
+     * 
+     * @param alpha How far the time has advanced from the last update to the next one (0 - 1)
+     * @return The x position between the last two updates
+     */
+    public float getInterpolatedX(float alpha) {
+        return previousPosition.x + (position.x - previousPosition.x) * alpha;
+    }
 
-        //old Position of Physics Object
-        float leftSide = hitbox.getX();
-        float rightSide = hitbox.getX() + hitbox.getWidth();
-        float topSide = hitbox.getY();
-        float botSide = hitbox.getY() + hitbox.getHeight();
-        
-        for (int i = 0; i < level.getMap().getWidth(); i++) {
-            for (int j = 0; j < level.getMap().getHeight(); j++) {
-                Tile tile = level.getMap().getTiles()[i][j];
-                if(!tile.isSolid()) continue;
-                RectHitbox obstacle = tile.getHitbox();
-                if(obstacle == null) continue;
-                
-                //Position of tile
-                float tileLeftSide = obstacle.getX();
-                float tileRightSide = obstacle.getX() + obstacle.getWidth();
-                float tileTopSide = obstacle.getY();
-                float tileBotSide = obstacle.getY() + obstacle.getHeight();
-                
-                //Find closest obstacle below player
-                if(leftSide < tileRightSide && rightSide > tileLeftSide && botSide <= tileTopSide) {
-                    if(tileTopSide - (botSide) < closestBot) {
-                        bot = tile;
-                        closestBot = tileTopSide - (botSide);
-                    }
-                }
-                //Find closest obstacle above player
-                if(leftSide < tileRightSide && rightSide > tileLeftSide && topSide >= tileBotSide) {
-                    if(topSide - (tileBotSide) < closestTop) {
-                        top = tile;
-                        closestTop = topSide - (tileBotSide);
-                    }
-                }
-                //Find closest obstacle right to the player
-                if(topSide < tileBotSide && botSide > tileTopSide && rightSide <= tileLeftSide) {
-                    if(tileLeftSide - (rightSide) < closestRig) {
-                        rig = tile;
-                        closestRig = tileLeftSide - (rightSide);
-                    }
-                }
-                //Find closest obstacle left to the player
-                if(topSide < tileBotSide && botSide > tileTopSide && leftSide >= tileRightSide) {
-                    if(leftSide - (tileRightSide) < closestLef) {
-                        lef = tile;
-                        closestLef = leftSide - (tileRightSide);
-                    }
-                }
+    /**
+     * 
+     * @param alpha How far the time has advanced from the last update to the next one (0 - 1)
+     * @return The y position between the last two updates
+     */
+    public float getInterpolatedY(float alpha) {
+        return previousPosition.y + (position.y - previousPosition.y) * alpha;
+    }
+
+    /**
+     * Collects all tiles the hitbox touches in one pass: the tiles intersecting the hitbox 
+     * and the tiles the object collided with this tick.
+     * Only the cells under the hitbox are visited.
+     */
+    public void updateContacts() {
+        contactMask = 0;
+        contactCount = 0;
+
+        Map map = level.getMap();
+        int tileSize = map.getTileSize();
+        int minCol = Math.max(0, (int)Math.floor(hitbox.getX() / tileSize));
+        int maxCol = Math.min(map.getWidth() - 1, (int)Math.floor((hitbox.getX() + hitbox.getWidth()) / tileSize));
+        int minRow = Math.max(0, (int)Math.floor(hitbox.getY() / tileSize));
+        int maxRow = Math.min(map.getHeight() - 1, (int)Math.floor((hitbox.getY() + hitbox.getHeight()) / tileSize));
+
+        for (int i = minCol; i <= maxCol; i++) {
+            for (int j = minRow; j <= maxRow; j++) {
+                Tile tile = map.getTile(i, j);
+                if(tile.getContactType() == Tile.NO_CONTACT) continue;
+                if(tile.isIntersecting(i, j, hitbox)) addContact(map.getCell(i, j), tile);
             }
         }
-        
-        //Save closest as options
-        closestMatrix[BOT] = bot;
-        closestMatrix[TOP] = top;
-        closestMatrix[LEF] = lef;
-        closestMatrix[RIG] = rig;
-        
-        //Fill Matrix when collision really is detected
-        Tile[] matrix = new Tile[4];
-        if(bot != null) {
-            if(newPositon.y + (hitbox.getOffsetY() + hitbox.getHeight()) > bot.getHitbox().getY()) {
-                matrix[BOT] = bot;
-            }
+
+        //Solid tiles are never intersected, they are touched when colliding
+        for (int i = 0; i < collisionMatrix.length; i++) {
+            int cell = collisionMatrix[i];
+            if(cell == Map.NO_CELL) continue;
+            Tile tile = map.getTile(cell);
+            if(tile.getContactType() != Tile.NO_CONTACT) addContact(cell, tile);
         }
-        if(top != null) {
-            if(newPositon.y + hitbox.getOffsetY() < top.getHitbox().getY() + top.getHitbox().getHeight()) {
-                matrix[TOP] = top;
-            }
+    }
+
+    private void addContact(int cell, Tile tile) {
+        for (int i = 0; i < contactCount; i++) {
+            if(contacts[i] == cell) return;
         }
-        if(lef != null) {
-            if(newPositon.x + hitbox.getOffsetX() < lef.getHitbox().getX() + lef.getHitbox().getWidth()) {
-                matrix[LEF] = lef;
-            }
+        if(contactCount == contacts.length) {
+            int[] newContacts = new int[contacts.length * 2];
+            System.arraycopy(contacts, 0, newContacts, 0, contactCount);
+            contacts = newContacts;
         }
-        if(rig != null) {
-            if(newPositon.x + (hitbox.getOffsetX() + hitbox.getWidth()) > rig.getHitbox().getX()) {
-                matrix[RIG] = rig;
-            }
-        }   
-        this.collisionMatrix = matrix;
+        contacts[contactCount++] = cell;
+        contactMask |= tile.getContactType();
+    }
+
+    public void updateCollisionMatrix(float tslf) {
+        float newPositionX = getX() + movementVector.x * tslf;
+        float newPositionY = getY() + movementVector.y * tslf;
+
+        //Finding the closest obstacles to the object in all 4 directions (from the old position)
+        float leftSide = hitbox.getX();
+        float topSide = hitbox.getY();
+        TileCollision.findClosestObstacles(level.getMap(), leftSide, topSide, leftSide + hitbox.getWidth(), topSide + hitbox.getHeight(), 
+                movementVector.x * tslf, movementVector.y * tslf, searchLimit, closestMatrix);
+        
+        //Fill Matrix when collision really is detected (the matrix is reused every tick)
+        TileCollision.detectCollisions(level.getMap(), closestMatrix, 
+                newPositionX + hitbox.getOffsetX(), 
+                newPositionY + hitbox.getOffsetY(), 
+                newPositionX + (hitbox.getOffsetX() + hitbox.getWidth()), 
+                newPositionY + (hitbox.getOffsetY() + hitbox.getHeight()), 
+                collisionMatrix);
+    }
+
+    /**
+     * Sets how many tiles beyond the movement of one tick are searched for the closest obstacles
+     * @param searchLimit The search limit in tiles
+     */
+    public void setSearchLimit(int searchLimit) {
+        this.searchLimit = searchLimit;
+    }
+
+    /**
+     * 
+     * @param contactTypes One or more contact types of Tile combined with |
+     * @return true if a tile of one of the given types was touched in the last tick
+     */
+    public boolean isInContact(int contactTypes) {
+        return (contactMask & contactTypes) != 0;
+    }
+
+    public int getContactMask() {
+        return contactMask;
+    }
+
+    public int getContactCount() {
+        return contactCount;
+    }
+
+    /**
+     * 
+     * @return The cell of the map of the touched tile
+     */
+    public int getContact(int index) {
+        return contacts[index];
     }
 
-    public Tile[] getCollisionMatrix() {
+    public int[] getCollisionMatrix() {
         return collisionMatrix;
     }
     
@@ -0,0 +1,142 @@
+package gameengine;
+
+import gamelogic.tiledMap.Map;
+import gamelogic.tiles.Tile;
+
+/**
+ * Collision-detection of a moving hitbox against the solid tiles of a map.
+ * Used by PhysicsObject and by the batch systems of EntityStore, so both behave the same.
+ * Obstacles are reported as cells of the map (Map.NO_CELL -> no obstacle).
+ */
+public final class TileCollision {
+	//Directions, used as indices of the collision matrices
+	public static final int BOT = 0;
+	public static final int TOP = 1;
+	public static final int LEF = 2;
+	public static final int RIG = 3;
+
+	//Used for the broadphase of the collision-detection
+	public static final boolean USE_BROADPHASE = true; //false -> scanning the whole map (used for comparison)
+	public static final int DEFAULT_SEARCH_LIMIT = 2; //number of tiles the closest obstacles are searched for beyond the movement of this tick
+
+	//Used for the continuous collision-detection
+	public static final boolean CONTINUOUS_COLLISION = true; //false -> one discrete check per tick
+	public static final float SUBSTEP_FRACTION = 0.25f; //maximum movement per substep relative to the tile size
+	public static final int MAX_SUBSTEPS = 32;
+
+	/**
+	 * Computes the number of substeps needed so the movement of one substep
+	 * stays below SUBSTEP_FRACTION of the tile size. Without fast movement this is 1.
+	 * @param movementX The movement in x direction in pixels per second
+	 * @param movementY The movement in y direction in pixels per second (after applying the gravity)
+	 * @param tslf Time since last frame
+	 * @param tileSize The size of one tile
+	 * @return The number of substeps for this tick
+	 */
+	public static int getSubstepCount(float movementX, float movementY, float tslf, int tileSize) {
+		if(!CONTINUOUS_COLLISION) return 1;
+		float maxStep = tileSize * SUBSTEP_FRACTION;
+		int substeps = (int)Math.ceil(Math.max(Math.abs(movementX) * tslf, Math.abs(movementY) * tslf) / maxStep);
+		if(substeps < 1) return 1;
+		return Math.min(substeps, MAX_SUBSTEPS);
+	}
+
+	/**
+	 * Finds the closest solid tile in all 4 directions of a hitbox.
+	 * Only the columns and rows the hitbox can reach with the given movement (plus the search limit) are checked.
+	 * @param closest Array of length 4 the cells of the closest tiles are written to
+	 */
+	public static void findClosestObstacles(Map map, float leftSide, float topSide, float rightSide, float botSide, float movementX, float movementY, int searchLimit, int[] closest) {
+		float closestBot = Float.MAX_VALUE, closestTop = Float.MAX_VALUE, closestLef = Float.MAX_VALUE, closestRig = Float.MAX_VALUE;
+		int bot = Map.NO_CELL, top = Map.NO_CELL, lef = Map.NO_CELL, rig = Map.NO_CELL;
+
+		//Broadphase: only the columns and rows the hitbox can reach this tick are checked
+		int minCol = 0, maxCol = map.getWidth() - 1, minRow = 0, maxRow = map.getHeight() - 1;
+		if(USE_BROADPHASE) {
+			int tileSize = map.getTileSize();
+			int reachX = (int)Math.ceil(Math.abs(movementX) / tileSize) + searchLimit;
+			int reachY = (int)Math.ceil(Math.abs(movementY) / tileSize) + searchLimit;
+			minCol = Math.max(minCol, (int)Math.floor(leftSide / tileSize) - reachX);
+			maxCol = Math.min(maxCol, (int)Math.floor(rightSide / tileSize) + reachX);
+			minRow = Math.max(minRow, (int)Math.floor(topSide / tileSize) - reachY);
+			maxRow = Math.min(maxRow, (int)Math.floor(botSide / tileSize) + reachY);
+		}
+
+		for (int i = minCol; i <= maxCol; i++) {
+			for (int j = minRow; j <= maxRow; j++) {
+				Tile tile = map.getTile(i, j);
+				if(!tile.isSolid() || !tile.hasHitbox()) continue;
+				int cell = map.getCell(i, j);
+
+				//Position of tile
+				float tileLeftSide = tile.getHitboxX(i);
+				float tileRightSide = tileLeftSide + tile.getHitboxWidth();
+				float tileTopSide = tile.getHitboxY(j);
+				float tileBotSide = tileTopSide + tile.getHitboxHeight();
+
+				//Find closest obstacle below the hitbox
+				if(leftSide < tileRightSide && rightSide > tileLeftSide && botSide <= tileTopSide) {
+					if(tileTopSide - (botSide) < closestBot) {
+						bot = cell;
+						closestBot = tileTopSide - (botSide);
+					}
+				}
+				//Find closest obstacle above the hitbox
+				if(leftSide < tileRightSide && rightSide > tileLeftSide && topSide >= tileBotSide) {
+					if(topSide - (tileBotSide) < closestTop) {
+						top = cell;
+						closestTop = topSide - (tileBotSide);
+					}
+				}
+				//Find closest obstacle right to the hitbox
+				if(topSide < tileBotSide && botSide > tileTopSide && rightSide <= tileLeftSide) {
+					if(tileLeftSide - (rightSide) < closestRig) {
+						rig = cell;
+						closestRig = tileLeftSide - (rightSide);
+					}
+				}
+				//Find closest obstacle left to the hitbox
+				if(topSide < tileBotSide && botSide > tileTopSide && leftSide >= tileRightSide) {
+					if(leftSide - (tileRightSide) < closestLef) {
+						lef = cell;
+						closestLef = leftSide - (tileRightSide);
+					}
+				}
+			}
+		}
+
+		closest[BOT] = bot;
+		closest[TOP] = top;
+		closest[LEF] = lef;
+		closest[RIG] = rig;
+	}
+
+	/**
+	 * Fills the collision matrix with the closest obstacles the hitbox would overlap at its new position
+	 * @param closest The cells of the closest obstacles (see findClosestObstacles())
+	 * @param collisions Array of length 4 the cells of the colliding tiles are written to
+	 */
+	public static void detectCollisions(Map map, int[] closest, float newLeftSide, float newTopSide, float newRightSide, float newBotSide, int[] collisions) {
+		collisions[BOT] = Map.NO_CELL;
+		collisions[TOP] = Map.NO_CELL;
+		collisions[LEF] = Map.NO_CELL;
+		collisions[RIG] = Map.NO_CELL;
+
+		int bot = closest[BOT];
+		if(bot != Map.NO_CELL && newBotSide > map.getHitboxY(bot)) {
+			collisions[BOT] = bot;
+		}
+		int top = closest[TOP];
+		if(top != Map.NO_CELL && newTopSide < map.getHitboxY(top) + map.getHitboxHeight(top)) {
+			collisions[TOP] = top;
+		}
+		int lef = closest[LEF];
+		if(lef != Map.NO_CELL && newLeftSide < map.getHitboxX(lef) + map.getHitboxWidth(lef)) {
+			collisions[LEF] = lef;
+		}
+		int rig = closest[RIG];
+		if(rig != Map.NO_CELL && newRightSide > map.getHitboxX(rig)) {
+			collisions[RIG] = rig;
+		}
+	}
+}
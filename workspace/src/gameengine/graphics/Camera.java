@@ -4,7 +4,6 @@ import java.awt.Color;
 import java.awt.Graphics;
 
 import gameengine.maths.Vector2D;
-import gamelogic.Main;
 import gamelogic.player.Player;
 
 public class Camera {
@@ -12,6 +11,7 @@ public class Camera {
 	public static final boolean SHOW_CAMERA = false;
 	
 	private Vector2D position;
+	private Vector2D previousPosition; //position before the last update, used for interpolation
 	private Player player;
 	
 	private int width;
@@ -35,6 +35,7 @@ public class Camera {
 	
 	public Camera(int width, int height, int borderLeft, int borderRight, int borderBot) {
 		this.position = new Vector2D();
+		this.previousPosition = new Vector2D();
 		this.goalPosition = new Vector2D();
 		this.width = width;
 		this.height = height;
@@ -44,6 +45,8 @@ public class Camera {
 	}
 	
 	public void update(float tslf) {
+		previousPosition.x = position.x;
+		previousPosition.y = position.y;
 		if(player != null) {
 			
 			calulateGoalPositon();
@@ -75,8 +78,8 @@ public class Camera {
 		float offsetX = Math.copySign(this.offsetX, player.getMovementX());
 		if(player.getMovementX() == 0) offsetX = 0;
 		
-		goalPosition.x = player.getX() + player.getWidth()/2 - Main.SCREEN_WIDTH/2 + offsetX;
-		goalPosition.y = player.getY() + player.getHeight()/2 - Main.SCREEN_HEIGHT/2 + offsetY;
+		goalPosition.x = player.getX() + player.getWidth()/2 - width/2 + offsetX;
+		goalPosition.y = player.getY() + player.getHeight()/2 - height/2 + offsetY;
 	}
 	
 	//used for debugging
@@ -93,6 +96,8 @@ public class Camera {
 		
 		position.x = goalPosition.x;
 		position.y = goalPosition.y;
+		previousPosition.x = position.x;
+		previousPosition.y = position.y;
 	}
 	
 	public boolean isVisibleOnCamera(float x, float y, int width, int height) {
@@ -103,10 +108,30 @@ public class Camera {
 	//--------------------------------Getters
 	public void setX(float x) {
 		position.x = x;
+		previousPosition.x = x;
 	}
 	
 	public void setY(float y) {
 		position.y = y;
+		previousPosition.y = y;
+	}
+	
+	/**
+	 * 
+	 * @param alpha How far the time has advanced from the last update to the next one (0 - 1)
+	 * @return The x position between the last two updates
+	 */
+	public float getInterpolatedX(float alpha) {
+		return previousPosition.x + (position.x - previousPosition.x) * alpha;
+	}
+	
+	/**
+	 * 
+	 * @param alpha How far the time has advanced from the last update to the next one (0 - 1)
+	 * @return The y position between the last two updates
+	 */
+	public float getInterpolatedY(float alpha) {
+		return previousPosition.y + (position.y - previousPosition.y) * alpha;
 	}
 	
 	public float getX(){
@@ -116,4 +141,12 @@ public class Camera {
 	public float getY() {
 		return position.y;
 	}
+	
+	public int getWidth() {
+		return width;
+	}
+	
+	public int getHeight() {
+		return height;
+	}
 }
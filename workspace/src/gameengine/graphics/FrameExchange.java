@@ -0,0 +1,47 @@
+package gameengine.graphics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands the snapshots of the simulation thread to the render thread without locks (triple buffering).
+ * The simulation fills its back snapshot and publishes it, the render thread takes the latest published snapshot.
+ * Each thread owns one snapshot, the third one is exchanged with a single atomic swap, so neither thread ever waits
+ * for the other: the simulation never waits for a frame to be drawn and the render thread draws the latest
+ * snapshot again if no new one was published.
+ */
+public class FrameExchange {
+
+	private static final int INDEX = 3; //the bits of the index of the exchanged snapshot
+	private static final int FRESH = 4; //set when the exchanged snapshot was published and not taken yet
+
+	private FrameSnapshot[] snapshots = { new FrameSnapshot(), new FrameSnapshot(), new FrameSnapshot() };
+	private int back = 0; //owned by the simulation thread
+	private int front = 1; //owned by the render thread
+	private AtomicInteger exchanged = new AtomicInteger(2);
+
+	/**
+	 * Called by the simulation thread
+	 * @return The snapshot to fill before the next publish()
+	 */
+	public FrameSnapshot getBack() {
+		return snapshots[back];
+	}
+
+	/**
+	 * Publishes the back snapshot, called by the simulation thread. The back snapshot is exchanged for another one.
+	 */
+	public void publish() {
+		back = exchanged.getAndSet(back | FRESH) & INDEX;
+	}
+
+	/**
+	 * Called by the render thread
+	 * @return The latest published snapshot, owned by the render thread until the next call
+	 */
+	public FrameSnapshot acquire() {
+		if((exchanged.get() & FRESH) != 0) {
+			front = exchanged.getAndSet(front) & INDEX;
+		}
+		return snapshots[front];
+	}
+}
@@ -0,0 +1,70 @@
+package gameengine.graphics;
+
+import java.awt.Graphics;
+
+/**
+ * The renderable state of one frame: draw commands in screen coordinates behind and in front of the world,
+ * and draw commands of the world with the camera position they are seen from.
+ * A snapshot only holds copied values and images which are never changed, so it can be drawn by another thread
+ * while the game goes on.
+ */
+public class FrameSnapshot {
+
+	private RenderQueue background = new RenderQueue(); //in screen coordinates, behind the world
+	private RenderQueue world = new RenderQueue();
+	private RenderQueue hud = new RenderQueue(); //in screen coordinates, in front of the world
+	private int cameraX;
+	private int cameraY;
+
+	/**
+	 * Draws the snapshot, it can be drawn again afterwards
+	 */
+	public void draw(Graphics g) {
+		background.draw(g);
+		g.translate(-cameraX, -cameraY);
+		world.draw(g);
+		g.translate(cameraX, cameraY);
+		hud.draw(g);
+	}
+
+	/**
+	 * Removes all commands, before the snapshot is filled again
+	 */
+	public void clear() {
+		background.clear();
+		world.clear();
+		hud.clear();
+		cameraX = 0;
+		cameraY = 0;
+	}
+
+	//------------------------------------Setters and Getters
+	/**
+	 *
+	 * @param cameraX The position of the camera in the world, the world is drawn moved by its negation
+	 */
+	public void setCamera(int cameraX, int cameraY) {
+		this.cameraX = cameraX;
+		this.cameraY = cameraY;
+	}
+
+	public RenderQueue getBackground() {
+		return background;
+	}
+
+	public RenderQueue getWorld() {
+		return world;
+	}
+
+	public RenderQueue getHud() {
+		return hud;
+	}
+
+	public int getCameraX() {
+		return cameraX;
+	}
+
+	public int getCameraY() {
+		return cameraY;
+	}
+}
@@ -15,12 +15,16 @@ public class MyGraphics {
 	}
 
 	public static void drawCenteredString(Graphics g, String text, Rectangle rect, Font font) {
+	    drawCenteredString(g, text, rect.x, rect.y, rect.width, rect.height, font);
+	}
+
+	public static void drawCenteredString(Graphics g, String text, int rectX, int rectY, int rectWidth, int rectHeight, Font font) {
 	    // Get the FontMetrics
 	    FontMetrics metrics = g.getFontMetrics(font);
 	    // Determine the X coordinate for the text
-	    int x = rect.x + (rect.width - metrics.stringWidth(text)) / 2;
+	    int x = rectX + (rectWidth - metrics.stringWidth(text)) / 2;
 	    // Determine the Y coordinate for the text (note we add the ascent, as in java 2d 0 is top of the screen)
-	    int y = rect.y + ((rect.height - metrics.getHeight()) / 2) + metrics.getAscent();
+	    int y = rectY + ((rectHeight - metrics.getHeight()) / 2) + metrics.getAscent();
 	    // Set the font
 	    g.setFont(font);
 	    // Draw the String
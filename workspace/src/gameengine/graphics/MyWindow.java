@@ -5,6 +5,8 @@ package gameengine.graphics;
 
 import java.awt.image.BufferStrategy;
 import java.awt.Insets;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.awt.Graphics;
 
 import javax.swing.JFrame;
@@ -18,9 +20,11 @@ import javax.swing.JFrame;
 
 @SuppressWarnings("serial")
 public class MyWindow extends JFrame {
+	private static final long ACTIVE_CHECK_MILLIS = 1000; //in case an activation is missed
 	private static int insetX;
 	private static int insetY;
 	private BufferStrategy strat;
+	private final Object activation = new Object(); //notified when the window is activated
 	
 	public MyWindow(String title, int width, int height) {
 		this.setTitle(title);
@@ -31,7 +35,7 @@ public class MyWindow extends JFrame {
 		
 		setVisible(true);
 		createBufferStrategy(3);
-		strat = null;
+		strat = getBufferStrategy();
 		
 		Insets i = getInsets();
 		insetX = i.left;
@@ -39,18 +43,38 @@ public class MyWindow extends JFrame {
 		this.setResizable(false);
 		this.setSize(width + insetX + i.right, height + insetY + i.bottom);
 		
+		addWindowListener(new WindowAdapter() {
+			@Override
+			public void windowActivated(WindowEvent e) {
+				synchronized (activation) {
+					activation.notifyAll();
+				}
+			}
+		});
 
 	}
 	
 	public BufferStrategy beginDrawing() {
-		strat = getBufferStrategy();
-		while(strat == null){
+		//The strategy is created in the constructor, only created again if that failed
+		if(strat == null) {
+			createBufferStrategy(3);
 			strat = getBufferStrategy();
 		}
 	
 		return strat;
 	}
 	
+	/**
+	 * Blocks until the window is active, without using the processor
+	 */
+	public void awaitActive() throws InterruptedException {
+		synchronized (activation) {
+			while(!isActive()) {
+				activation.wait(ACTIVE_CHECK_MILLIS);
+			}
+		}
+	}
+	
 	// public void endDrawing(Graphics g){
 	// 	g.dispose();
 	// 	strat.show();
@@ -0,0 +1,226 @@
+package gameengine.graphics;
+
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.util.Arrays;
+
+/**
+ * Draw commands of one frame, which are collected first and drawn together in flush().
+ * The commands are sorted by their layer, lower layers are drawn first. Inside a layer they are grouped by
+ * composite and image, so the state of the graphics changes as rarely as possible. Only commands with the same
+ * composite and image (or the rectangles of a layer) keep the order they were submitted in, so things which overlap
+ * and have to be drawn in a certain order belong to different layers.
+ * Shapes and texts are drawn after the images of their layer.
+ * Preparing the commands doesn't need the graphics, so a frame can be prepared while another one is drawn.
+ */
+public class RenderQueue {
+
+	public static final int MAX_LAYER = 127; //the layer is the top byte of the sort key, which has to stay positive
+
+	//Kinds of commands
+	private static final int IMAGE = 0;
+	private static final int FILL_RECT = 1;
+	private static final int DRAW_RECT = 2;
+	private static final int FILL_OVAL = 3;
+	private static final int CENTERED_STRING = 4;
+
+	private static final long NO_IMAGE = 0xffff; //sort key of the shapes and texts, after every image
+
+	private int size;
+	private int[] kinds = new int[0];
+	private int[] xs = new int[0];
+	private int[] ys = new int[0];
+	private int[] widths = new int[0];
+	private int[] heights = new int[0];
+	private Image[] images = new Image[0];
+	private Color[] colors = new Color[0];
+	private String[] texts = new String[0];
+	private Font[] fonts = new Font[0];
+	private Composite[] composites = new Composite[0]; //null -> the composite of the graphics
+	private long[] keys = new long[0]; //layer, composite, image and index of every command, see add()
+
+	private boolean sorted = true;
+	private int stateChanges; //of the last draw
+
+	/**
+	 * Draws an image in its own size
+	 * @param composite null -> the composite of the graphics
+	 */
+	public void drawImage(int layer, Image image, int x, int y, Composite composite) {
+		int i = add(IMAGE, layer, x, y, 0, 0, composite, image);
+		images[i] = image;
+	}
+
+	/**
+	 *
+	 * @param composite null -> the composite of the graphics
+	 */
+	public void fillRect(int layer, Color color, int x, int y, int width, int height, Composite composite) {
+		int i = add(FILL_RECT, layer, x, y, width, height, composite, null);
+		colors[i] = color;
+	}
+
+	/**
+	 *
+	 * @param composite null -> the composite of the graphics
+	 */
+	public void drawRect(int layer, Color color, int x, int y, int width, int height, Composite composite) {
+		int i = add(DRAW_RECT, layer, x, y, width, height, composite, null);
+		colors[i] = color;
+	}
+
+	/**
+	 * A filled rectangle with a black outline (see MyGraphics.fillRectWithOutline())
+	 * @param composite null -> the composite of the graphics
+	 */
+	public void fillRectWithOutline(int layer, Color color, int x, int y, int width, int height, Composite composite) {
+		fillRect(layer, color, x, y, width, height, composite);
+		drawRect(layer, Color.BLACK, x, y, width, height, composite);
+	}
+
+	/**
+	 *
+	 * @param composite null -> the composite of the graphics
+	 */
+	public void fillOval(int layer, Color color, int x, int y, int width, int height, Composite composite) {
+		int i = add(FILL_OVAL, layer, x, y, width, height, composite, null);
+		colors[i] = color;
+	}
+
+	/**
+	 * A text centered in a rectangle (see MyGraphics.drawCenteredString())
+	 * @param composite null -> the composite of the graphics
+	 */
+	public void drawCenteredString(int layer, Color color, String text, Font font, int x, int y, int width, int height, Composite composite) {
+		int i = add(CENTERED_STRING, layer, x, y, width, height, composite, null);
+		colors[i] = color;
+		texts[i] = text;
+		fonts[i] = font;
+	}
+
+	private int add(int kind, int layer, int x, int y, int width, int height, Composite composite, Image image) {
+		if(layer < 0 || layer > MAX_LAYER) throw new IllegalArgumentException("Layer out of range: " + layer);
+		if(size == keys.length) grow();
+		int i = size++;
+		kinds[i] = kind;
+		xs[i] = x;
+		ys[i] = y;
+		widths[i] = width;
+		heights[i] = height;
+		composites[i] = composite;
+
+		//The identity hashes only group equal states, two states with the same hash are still drawn correctly
+		long compositeKey = composite == null ? 0 : 1 + (System.identityHashCode(composite) & 0xfe);
+		long imageKey = image == null ? NO_IMAGE : System.identityHashCode(image) & 0xfffe;
+		keys[i] = ((long) layer << 56) | (compositeKey << 48) | (imageKey << 32) | i;
+		sorted = false;
+		return i;
+	}
+
+	private void grow() {
+		int length = Math.max(64, keys.length * 2);
+		kinds = Arrays.copyOf(kinds, length);
+		xs = Arrays.copyOf(xs, length);
+		ys = Arrays.copyOf(ys, length);
+		widths = Arrays.copyOf(widths, length);
+		heights = Arrays.copyOf(heights, length);
+		images = Arrays.copyOf(images, length);
+		colors = Arrays.copyOf(colors, length);
+		texts = Arrays.copyOf(texts, length);
+		fonts = Arrays.copyOf(fonts, length);
+		composites = Arrays.copyOf(composites, length);
+		keys = Arrays.copyOf(keys, length);
+	}
+
+	/**
+	 * Draws the commands sorted by their layer and state and removes them
+	 */
+	public void flush(Graphics g) {
+		draw(g);
+		clear();
+	}
+
+	/**
+	 * Draws the commands sorted by their layer and state and keeps them, so they can be drawn again.
+	 * The composite of the graphics is restored afterwards.
+	 */
+	public void draw(Graphics g) {
+		if(!sorted) {
+			Arrays.sort(keys, 0, size);
+			sorted = true;
+		}
+		Graphics2D g2d = g instanceof Graphics2D ? (Graphics2D) g : null;
+		Composite original = g2d == null ? null : g2d.getComposite();
+		Composite composite = original;
+		Color color = null;
+		stateChanges = 0;
+
+		for (int k = 0; k < size; k++) {
+			int i = (int) keys[k];
+			Composite next = composites[i] == null ? original : composites[i];
+			if(g2d != null && next != composite) {
+				g2d.setComposite(next);
+				composite = next;
+				stateChanges++;
+			}
+			if(kinds[i] == IMAGE) {
+				g.drawImage(images[i], xs[i], ys[i], null);
+				continue;
+			}
+			if(colors[i] != color) {
+				g.setColor(colors[i]);
+				color = colors[i];
+				stateChanges++;
+			}
+			switch (kinds[i]) {
+			case FILL_RECT:
+				g.fillRect(xs[i], ys[i], widths[i], heights[i]);
+				break;
+			case DRAW_RECT:
+				g.drawRect(xs[i], ys[i], widths[i], heights[i]);
+				break;
+			case FILL_OVAL:
+				g.fillOval(xs[i], ys[i], widths[i], heights[i]);
+				break;
+			default: //CENTERED_STRING
+				MyGraphics.drawCenteredString(g, texts[i], xs[i], ys[i], widths[i], heights[i], fonts[i]);
+				break;
+			}
+		}
+
+		if(g2d != null && composite != original) g2d.setComposite(original);
+	}
+
+	/**
+	 * Removes the commands without drawing them
+	 */
+	public void clear() {
+		Arrays.fill(images, 0, size, null);
+		Arrays.fill(colors, 0, size, null);
+		Arrays.fill(texts, 0, size, null);
+		Arrays.fill(fonts, 0, size, null);
+		Arrays.fill(composites, 0, size, null);
+		size = 0;
+	}
+
+	//------------------------------------Getters
+	/**
+	 *
+	 * @return The number of commands in the queue
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 *
+	 * @return The number of composite and color changes of the last draw
+	 */
+	public int getStateChanges() {
+		return stateChanges;
+	}
+}
@@ -1,7 +1,10 @@
 package gameengine.hitbox;
 
+import java.awt.Composite;
 import java.awt.Graphics;
 
+import gameengine.graphics.RenderQueue;
+
 /**
  * 
  * @author Paul
@@ -14,4 +17,10 @@ public abstract class Hitbox {
 	public abstract void update();
 	
 	public abstract void draw(Graphics graphics);
+	
+	/**
+	 * Submits the outline of the hitbox to a render queue, only if SHOW_HITBOXES is set
+	 * @param composite null -> the composite of the graphics
+	 */
+	public abstract void submit(RenderQueue queue, int layer, Composite composite);
 }
@@ -1,9 +1,11 @@
 package gameengine.hitbox;
 
 import java.awt.Color;
+import java.awt.Composite;
 import java.awt.Graphics;
 
 import gameengine.GameObject;
+import gameengine.graphics.RenderQueue;
 import gameengine.maths.Vector2D;
 
 public class RectHitbox extends Hitbox{
@@ -48,6 +50,12 @@ public class RectHitbox extends Hitbox{
 		g.drawRect((int)position.x, (int)position.y, width, height);
 	}
 
+	@Override
+	public void submit(RenderQueue queue, int layer, Composite composite) {
+		if(!SHOW_HITBOXES) return;
+		queue.drawRect(layer, Color.GREEN, (int)position.x, (int)position.y, width, height, composite);
+	}
+
 	public boolean isIntersecting(RectHitbox hitbox) {
 		if(position.x < hitbox.getX() + hitbox.getWidth() && position.x + width > hitbox.getX() && position.y < hitbox.getY() + hitbox.getHeight() && position.y + height > hitbox.getY()) return true;
 		return false;
@@ -0,0 +1,164 @@
+package gameengine.hitbox;
+
+import java.util.Arrays;
+
+import gameengine.util.IntList;
+
+/**
+ * Uniform grid for finding objects near a rectangle without testing every object.
+ * The grid cells are hashed into a fixed number of buckets, so the grid needs no bounds.
+ * Objects are identified by an id (e.g. their index in an array) and inserted with their bounds.
+ * The hash is rebuilt every tick with clear() and insert(), after the first ticks nothing gets allocated.
+ * 
+ */
+public class SpatialHash {
+
+	private int cellSize;
+	
+	private int[] buckets; //first entry of every bucket, -1 -> empty
+	private int bucketMask;
+	
+	//one entry for every cell an object overlaps
+	private int[] entryIds;
+	private int[] entryNext;
+	private int entryCount;
+	
+	//bounds of every object
+	private float[] minX;
+	private float[] minY;
+	private float[] maxX;
+	private float[] maxY;
+	
+	//used to report an object in more than one cell only once
+	private int[] queryMarks;
+	private int queryStamp;
+	
+	public SpatialHash(int cellSize) {
+		this(cellSize, 64);
+	}
+	
+	/**
+	 * 
+	 * @param cellSize The size of one cell in pixels, should be bigger than most of the objects
+	 * @param capacity The expected number of objects
+	 */
+	public SpatialHash(int cellSize, int capacity) {
+		this.cellSize = cellSize;
+		this.entryIds = new int[0];
+		this.entryNext = new int[0];
+		this.minX = new float[0];
+		this.minY = new float[0];
+		this.maxX = new float[0];
+		this.maxY = new float[0];
+		this.queryMarks = new int[0];
+		ensureCapacity(capacity);
+		clear();
+	}
+	
+	/**
+	 * Makes room for the ids 0 to capacity-1
+	 */
+	public void ensureCapacity(int capacity) {
+		if(capacity <= minX.length && buckets != null) return;
+		minX = Arrays.copyOf(minX, capacity);
+		minY = Arrays.copyOf(minY, capacity);
+		maxX = Arrays.copyOf(maxX, capacity);
+		maxY = Arrays.copyOf(maxY, capacity);
+		queryMarks = Arrays.copyOf(queryMarks, capacity);
+		
+		int bucketCount = Integer.highestOneBit(Math.max(64, capacity * 2) - 1) << 1;
+		if(buckets == null || bucketCount > buckets.length) {
+			buckets = new int[bucketCount];
+			bucketMask = bucketCount - 1;
+			clear();
+		}
+	}
+	
+	public void clear() {
+		Arrays.fill(buckets, -1);
+		entryCount = 0;
+	}
+	
+	/**
+	 * Adds an object to every cell its bounds overlap
+	 * @param id The id of the object, must be smaller than the capacity
+	 */
+	public void insert(int id, float x, float y, float width, float height) {
+		minX[id] = x;
+		minY[id] = y;
+		maxX[id] = x + width;
+		maxY[id] = y + height;
+		
+		int firstCellX = toCell(x);
+		int lastCellX = toCell(x + width);
+		int firstCellY = toCell(y);
+		int lastCellY = toCell(y + height);
+		for (int cellX = firstCellX; cellX <= lastCellX; cellX++) {
+			for (int cellY = firstCellY; cellY <= lastCellY; cellY++) {
+				addEntry(id, hash(cellX, cellY));
+			}
+		}
+	}
+	
+	/**
+	 * Finds all objects whose bounds overlap the given rectangle
+	 * @param result The ids of the found objects are added to this list
+	 * @return The number of found objects
+	 */
+	public int query(float x, float y, float width, float height, IntList result) {
+		queryStamp++;
+		if(queryStamp == 0) { //overflow -> resetting the marks
+			Arrays.fill(queryMarks, 0);
+			queryStamp = 1;
+		}
+		
+		float right = x + width;
+		float bottom = y + height;
+		int found = 0;
+		
+		int firstCellX = toCell(x);
+		int lastCellX = toCell(right);
+		int firstCellY = toCell(y);
+		int lastCellY = toCell(bottom);
+		for (int cellX = firstCellX; cellX <= lastCellX; cellX++) {
+			for (int cellY = firstCellY; cellY <= lastCellY; cellY++) {
+				for (int entry = buckets[hash(cellX, cellY)]; entry != -1; entry = entryNext[entry]) {
+					int id = entryIds[entry];
+					if(queryMarks[id] == queryStamp) continue;
+					queryMarks[id] = queryStamp;
+					
+					if(minX[id] < right && maxX[id] > x && minY[id] < bottom && maxY[id] > y) {
+						result.add(id);
+						found++;
+					}
+				}
+			}
+		}
+		return found;
+	}
+	
+	private void addEntry(int id, int bucket) {
+		if(entryCount == entryIds.length) {
+			int capacity = Math.max(64, entryIds.length * 2);
+			entryIds = Arrays.copyOf(entryIds, capacity);
+			entryNext = Arrays.copyOf(entryNext, capacity);
+		}
+		entryIds[entryCount] = id;
+		entryNext[entryCount] = buckets[bucket];
+		buckets[bucket] = entryCount;
+		entryCount++;
+	}
+	
+	private int toCell(float position) {
+		return (int)Math.floor(position / cellSize);
+	}
+	
+	private int hash(int cellX, int cellY) {
+		return ((cellX * 73856093) ^ (cellY * 19349663)) & bucketMask;
+	}
+	
+	//------------------------------------Getters
+	public int getCellSize() {
+		return cellSize;
+	}
+}
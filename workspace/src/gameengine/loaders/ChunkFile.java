@@ -0,0 +1,299 @@
+package gameengine.loaders;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import gameengine.util.IntList;
+import gamelogic.tiles.Gas;
+import gamelogic.tiles.TileRegistry;
+
+/**
+ * A map file converted to square chunks of tile ids with a fixed size, so every chunk can be read on its own.
+ *
+ * Layout (big endian):
+ * header: magic, version, source modified, source length (longs), registry hash,
+ *         width, height, tileSize, chunkSize, playerX, playerY, activeMargin, coarseMargin, chunkBudget, spawnCount
+ * chunks: row by row, the ids of one chunk as shorts column by column (cells outside of the map are air),
+ *         gas has the intensity of its neighbours in the map file (see Gas.shade())
+ * spawns: column and row of every enemy
+ */
+public class ChunkFile {
+
+	public static final int MAGIC = 0x43484e4b; //"CHNK"
+	public static final int VERSION = 3;
+	public static final int CHUNK_SHIFT = 5;
+	public static final int CHUNK_SIZE = 1 << CHUNK_SHIFT; //in tiles
+	private static final int HEADER_SIZE = 13 * 4 + 2 * 8; //in bytes
+
+	private RandomAccessFile file;
+	private int width;
+	private int height;
+	private int tileSize;
+	private int playerX;
+	private int playerY;
+	private int activeMargin;
+	private int coarseMargin;
+	private int chunkBudget; //in kilobytes, 0 -> default
+	private int[] spawns;
+	private int chunkCols;
+	private int chunkRows;
+	private byte[] buffer = new byte[CHUNK_SIZE * CHUNK_SIZE * 2];
+
+	private ChunkFile(String path) throws IOException {
+		file = new RandomAccessFile(path, "r");
+		if(file.readInt() != MAGIC || file.readInt() != VERSION) {
+			file.close();
+			throw new IOException("Not a chunk file: " + path);
+		}
+		file.readLong(); //source modified
+		file.readLong(); //source length
+		file.readInt(); //registry hash
+		width = file.readInt();
+		height = file.readInt();
+		tileSize = file.readInt();
+		if(file.readInt() != CHUNK_SIZE) {
+			file.close();
+			throw new IOException("Unsupported chunk size: " + path);
+		}
+		playerX = file.readInt();
+		playerY = file.readInt();
+		activeMargin = file.readInt();
+		coarseMargin = file.readInt();
+		chunkBudget = file.readInt();
+		int spawnCount = file.readInt();
+		chunkCols = (width + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		chunkRows = (height + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+		spawns = new int[spawnCount * 2];
+		file.seek(HEADER_SIZE + (long) chunkCols * chunkRows * buffer.length);
+		for (int i = 0; i < spawns.length; i++) {
+			spawns[i] = file.readInt();
+		}
+	}
+
+	/**
+	 * Opens the chunk file of a map file. The chunk file is created if it is missing, has another version
+	 * or was converted from another map file or tileset (see isCurrent()).
+	 * @param mapPath The path of the map file, the chunk file is stored beside it
+	 * @param tileRegistry Used to find the enemies, which are stored as spawns
+	 */
+	public static ChunkFile open(String mapPath, TileRegistry tileRegistry) throws IOException {
+		File chunks = new File(mapPath + ".chunks");
+		if(!isCurrent(chunks, new File(mapPath), tileRegistry)) {
+			convert(mapPath, chunks.getPath(), tileRegistry);
+		}
+		return new ChunkFile(chunks.getPath());
+	}
+
+	/**
+	 * @return true if the chunk file has the current version and was converted from the map file as it is now
+	 * (same modification time and length) with tiles defined the same way
+	 */
+	private static boolean isCurrent(File chunks, File map, TileRegistry tileRegistry) throws IOException {
+		if(!chunks.exists() || chunks.length() < HEADER_SIZE) return false;
+		RandomAccessFile file = new RandomAccessFile(chunks, "r");
+		try {
+			return file.readInt() == MAGIC && file.readInt() == VERSION && file.readLong() == map.lastModified() && file.readLong() == map.length()
+					&& file.readInt() == tileRegistry.getDefinitionHash();
+		} finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * Converts a map file to a chunk file. Only the rows of one row of chunks are held in memory,
+	 * and the map rows above and below the row which is written, to shade the gas.
+	 */
+	public static void convert(String mapPath, String chunkPath, TileRegistry tileRegistry) throws IOException {
+		BufferedReader bufferedReader = new BufferedReader(new FileReader(mapPath));
+		RandomAccessFile out = new RandomAccessFile(chunkPath, "rw");
+		try {
+			out.setLength(0);
+			int width = Integer.parseInt(bufferedReader.readLine().split("=")[1]);
+			int height = Integer.parseInt(bufferedReader.readLine().split("=")[1]);
+			int tileSize = Integer.parseInt(bufferedReader.readLine().split("=")[1]);
+			int chunkCols = (width + CHUNK_SIZE - 1) / CHUNK_SIZE;
+			int chunkBytes = CHUNK_SIZE * CHUNK_SIZE * 2;
+			IntList spawns = new IntList();
+
+			//Chunks, one row of chunks at a time, a row is written once the row below it was read
+			out.seek(HEADER_SIZE);
+			ByteBuffer band = ByteBuffer.allocate(chunkCols * chunkBytes);
+			int[] above = null;
+			int[] current = height > 0 ? readRow(bufferedReader, width, 0, tileRegistry, spawns) : null;
+			for (int row = 0; row < height; row++) {
+				int[] below = row + 1 < height ? readRow(bufferedReader, width, row + 1, tileRegistry, spawns) : null;
+				int localRow = row & (CHUNK_SIZE - 1);
+				if(localRow == 0) {
+					band.clear();
+					Arrays.fill(band.array(), (byte) 0);
+				}
+				for (int col = 0; col < width; col++) {
+					int value = current[col];
+					if(tileRegistry.isGas(value)) value = tileRegistry.getGasId(Gas.getIntensity(countGas(above, current, below, col, tileRegistry)));
+					int local = ((col & (CHUNK_SIZE - 1)) << CHUNK_SHIFT) | localRow;
+					band.putShort((col >> CHUNK_SHIFT) * chunkBytes + local * 2, (short) value);
+				}
+				if(localRow == CHUNK_SIZE - 1 || row == height - 1) out.write(band.array());
+				above = current;
+				current = below;
+			}
+
+			//Settings after the rows
+			String[] playerPos = bufferedReader.readLine().split("=")[1].split(",");
+			int playerX = Integer.parseInt(playerPos[0]);
+			int playerY = Integer.parseInt(playerPos[1]);
+			int activeMargin = -1, coarseMargin = -1, chunkBudget = 0;
+			String line;
+			while((line = bufferedReader.readLine()) != null) {
+				String[] setting = line.split("=");
+				if(setting.length != 2) continue;
+				if(setting[0].trim().equals("activeMargin")) activeMargin = Integer.parseInt(setting[1].trim());
+				else if(setting[0].trim().equals("coarseMargin")) coarseMargin = Integer.parseInt(setting[1].trim());
+				else if(setting[0].trim().equals("chunkBudget")) chunkBudget = Integer.parseInt(setting[1].trim());
+			}
+
+			for (int i = 0; i < spawns.size(); i++) {
+				out.writeInt(spawns.get(i));
+			}
+
+			out.seek(0);
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(new File(mapPath).lastModified());
+			out.writeLong(new File(mapPath).length());
+			out.writeInt(tileRegistry.getDefinitionHash());
+			out.writeInt(width);
+			out.writeInt(height);
+			out.writeInt(tileSize);
+			out.writeInt(CHUNK_SIZE);
+			out.writeInt(playerX);
+			out.writeInt(playerY);
+			out.writeInt(activeMargin);
+			out.writeInt(coarseMargin);
+			out.writeInt(chunkBudget);
+			out.writeInt(spawns.size() / 2);
+		} finally {
+			bufferedReader.close();
+			out.close();
+		}
+	}
+
+	/**
+	 * Reads the values of a row of the map file, the enemies are added to the spawns and replaced by air
+	 */
+	private static int[] readRow(BufferedReader bufferedReader, int width, int row, TileRegistry tileRegistry, IntList spawns) throws IOException {
+		String[] valuesAsString = bufferedReader.readLine().split(",");
+		int[] values = new int[width];
+		for (int col = 0; col < width; col++) {
+			int value = Integer.parseInt(valuesAsString[col]);
+			if(tileRegistry.isEnemy(value)) {
+				spawns.add(col);
+				spawns.add(row);
+				value = 0;
+			}
+			values[col] = value;
+		}
+		return values;
+	}
+
+	/**
+	 * @param above The row above the cell, null -> outside of the map
+	 * @param below The row below the cell, null -> outside of the map
+	 * @return The number of gas tiles around the cell in the column col of the current row
+	 */
+	private static int countGas(int[] above, int[] current, int[] below, int col, TileRegistry tileRegistry) {
+		int count = 0;
+		for (int i = Math.max(0, col - 1); i <= Math.min(current.length - 1, col + 1); i++) {
+			if(above != null && tileRegistry.isGas(above[i])) count++;
+			if(i != col && tileRegistry.isGas(current[i])) count++;
+			if(below != null && tileRegistry.isGas(below[i])) count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Reads the ids of one chunk
+	 * @param chunk The index of the chunk (chunkRow * chunkCols + chunkCol)
+	 * @param ids Array of length CHUNK_SIZE * CHUNK_SIZE the ids are written to, column by column
+	 */
+	public synchronized void readChunk(int chunk, short[] ids) throws IOException {
+		file.seek(HEADER_SIZE + (long) chunk * buffer.length);
+		file.readFully(buffer);
+		ByteBuffer.wrap(buffer).asShortBuffer().get(ids);
+	}
+
+	public void close() throws IOException {
+		file.close();
+	}
+
+	//------------------------------------Getters
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 *
+	 * @return The tile size of the map file (before it is scaled by the loader)
+	 */
+	public int getTileSize() {
+		return tileSize;
+	}
+
+	public int getPlayerX() {
+		return playerX;
+	}
+
+	public int getPlayerY() {
+		return playerY;
+	}
+
+	/**
+	 *
+	 * @return The active margin of the map file, -1 -> not set
+	 */
+	public int getActiveMargin() {
+		return activeMargin;
+	}
+
+	/**
+	 *
+	 * @return The coarse margin of the map file, -1 -> not set
+	 */
+	public int getCoarseMargin() {
+		return coarseMargin;
+	}
+
+	/**
+	 *
+	 * @return The memory budget of the loaded chunks in kilobytes, 0 -> not set
+	 */
+	public int getChunkBudget() {
+		return chunkBudget;
+	}
+
+	/**
+	 *
+	 * @return Column and row of every enemy
+	 */
+	public int[] getSpawns() {
+		return spawns;
+	}
+
+	public int getChunkCols() {
+		return chunkCols;
+	}
+
+	public int getChunkRows() {
+		return chunkRows;
+	}
+}
@@ -3,6 +3,9 @@
  */
 package gameengine.loaders;
 
+import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
+import java.awt.Transparency;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -30,4 +33,26 @@ public final class ImageLoader {
 		BufferedImage image = ImageIO.read(source);
 		return image;
 	}
+	
+	/**
+	 * Creates an empty, translucent image in the format of the screen, so drawing it is a plain copy
+	 * (ARGB if there is no screen)
+	 */
+	public static BufferedImage createCompatibleImage(int width, int height) {
+		if(GraphicsEnvironment.isHeadless()) return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration().createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+	}
+	
+	/**
+	 * Copies an image into a new compatible image (see createCompatibleImage()), scaled to the given size
+	 * @param source The image to copy, can be a subimage
+	 * @return A standalone image, it doesn't share the raster of the source
+	 */
+	public static BufferedImage scaleImage(BufferedImage source, int width, int height) {
+		BufferedImage image = createCompatibleImage(width, height);
+		Graphics2D g = image.createGraphics();
+		g.drawImage(source, 0, 0, width, height, null);
+		g.dispose();
+		return image;
+	}
 }
\ No newline at end of file
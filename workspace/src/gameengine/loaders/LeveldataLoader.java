@@ -3,18 +3,35 @@ package gameengine.loaders;
 import java.io.BufferedReader;
 import java.io.FileReader;
 
-import gamelogic.Main;
+import gameengine.ActivityRegions;
+import gamelogic.GameResources;
 import gamelogic.level.LevelData;
 
 public class LeveldataLoader {
 
-	public static LevelData loadLeveldata(String filePath) throws Exception {
+	/**
+	 * 
+	 * @param filePath The path of the map file
+	 * @param screenHeight The height of the screen the level is shown on, the tile size is limited to a tenth of it
+	 */
+	public static LevelData loadLeveldata(String filePath, int screenHeight) throws Exception {
+		return loadLeveldata(filePath, screenHeight, false);
+	}
+	
+	/**
+	 * 
+	 * @param filePath The path of the map file
+	 * @param screenHeight The height of the screen the level is shown on, the tile size is limited to a tenth of it
+	 * @param chunked true -> the map is converted to a chunk file (once) and only the chunks around the camera are loaded while playing
+	 */
+	public static LevelData loadLeveldata(String filePath, int screenHeight, boolean chunked) throws Exception {
+		if(chunked) return loadChunked(filePath, screenHeight);
 		BufferedReader bufferedReader = new BufferedReader(new FileReader(filePath));
 		
 		int width = Integer.parseInt(bufferedReader.readLine().split("=")[1]);
 		int height = Integer.parseInt(bufferedReader.readLine().split("=")[1]);
 		int tileSize = Integer.parseInt(bufferedReader.readLine().split("=")[1]) * 2;
-		tileSize = tileSize< Main.SCREEN_HEIGHT/10 ? tileSize : Main.SCREEN_HEIGHT/10; 
+		tileSize = tileSize< screenHeight/10 ? tileSize : screenHeight/10; 
 		int[][] values = new int[width][height];
 		
 		for (int y = 0; y < height; y++) {
@@ -26,10 +43,35 @@ public class LeveldataLoader {
 		String[] playerPos = bufferedReader.readLine().split("=")[1].split(",");
 		int playerX = Integer.parseInt(playerPos[0]);
 		int playerY = Integer.parseInt(playerPos[1]);
+		
+		//Optional settings of the simulation of the enemies
+		int activeMargin = ActivityRegions.DEFAULT_ACTIVE_MARGIN;
+		int coarseMargin = ActivityRegions.DEFAULT_COARSE_MARGIN;
+		String line;
+		while((line = bufferedReader.readLine()) != null) {
+			String[] setting = line.split("=");
+			if(setting.length != 2) continue;
+			if(setting[0].trim().equals("activeMargin")) activeMargin = Integer.parseInt(setting[1].trim());
+			else if(setting[0].trim().equals("coarseMargin")) coarseMargin = Integer.parseInt(setting[1].trim());
+		}
 		bufferedReader.close();
 
 		Mapdata mapdata = new Mapdata(width, height, tileSize, values);
-		LevelData leveldata = new LevelData(mapdata, playerX, playerY);
+		LevelData leveldata = new LevelData(mapdata, playerX, playerY, activeMargin, coarseMargin);
+		
+		return leveldata;
+	}
+	
+	private static LevelData loadChunked(String filePath, int screenHeight) throws Exception {
+		ChunkFile chunkFile = ChunkFile.open(filePath, GameResources.tileRegistry);
+		int tileSize = chunkFile.getTileSize() * 2;
+		tileSize = tileSize< screenHeight/10 ? tileSize : screenHeight/10; 
+		
+		int activeMargin = chunkFile.getActiveMargin() >= 0 ? chunkFile.getActiveMargin() : ActivityRegions.DEFAULT_ACTIVE_MARGIN;
+		int coarseMargin = chunkFile.getCoarseMargin() >= 0 ? chunkFile.getCoarseMargin() : ActivityRegions.DEFAULT_COARSE_MARGIN;
+		Mapdata mapdata = new Mapdata(tileSize, chunkFile);
+		LevelData leveldata = new LevelData(mapdata, chunkFile.getPlayerX(), chunkFile.getPlayerY(), activeMargin, coarseMargin);
+		if(chunkFile.getChunkBudget() > 0) leveldata.setChunkBudget(chunkFile.getChunkBudget() * 1024);
 		
 		return leveldata;
 	}
@@ -6,6 +6,7 @@ public class Mapdata {
 	private int height;
 	private int tileSize;
 	private int[][]values;
+	private ChunkFile chunkFile; //only set if the map is streamed
 	
 	public Mapdata(int width, int height, int tileSize, int[][]values) {
 		this.width = width;
@@ -14,6 +15,16 @@ public class Mapdata {
 		this.values = values;
 	}
 	
+	/**
+	 * Map which is read in chunks while playing, it has no values
+	 */
+	public Mapdata(int tileSize, ChunkFile chunkFile) {
+		this.width = chunkFile.getWidth();
+		this.height = chunkFile.getHeight();
+		this.tileSize = tileSize;
+		this.chunkFile = chunkFile;
+	}
+	
 	//------------------------------------------Getters
 	public int getWidth() {
 		return width;
@@ -30,4 +41,12 @@ public class Mapdata {
 	public int[][] getValues() {
 		return values;
 	}
+	
+	public boolean isChunked() {
+		return chunkFile != null;
+	}
+	
+	public ChunkFile getChunkFile() {
+		return chunkFile;
+	}
 }
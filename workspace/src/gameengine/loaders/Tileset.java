@@ -8,17 +8,40 @@ public class Tileset {
 	private Map<String, BufferedImage> images;
 	private Map<Integer, BufferedImage> idImages;
 	private Map<Integer, String> names;
+	private Map<Integer, String> behaviours;
+	private Map<Integer, String> parameters;
+	private Map<Integer, Integer> lines; //line of every id in the tileset file
+	private Map<String, Integer> ids; //by name
+	private Map<Integer, Map<Integer, BufferedImage>> scaledImages; //by size, then by id
 	
 	public Tileset() {
 		images = new HashMap<String, BufferedImage>();
 		idImages = new HashMap<Integer, BufferedImage>();
 		names = new HashMap<Integer, String>();
+		behaviours = new HashMap<Integer, String>();
+		parameters = new HashMap<Integer, String>();
+		lines = new HashMap<Integer, Integer>();
+		ids = new HashMap<String, Integer>();
+		scaledImages = new HashMap<Integer, Map<Integer, BufferedImage>>();
 	}
 	
 	public void addImage(String name, Integer id, BufferedImage image) {
 		images.put(name, image);
 		idImages.put(id,  image);
 		names.put(id,  name);
+		ids.put(name, id);
+	}
+	
+	/**
+	 * 
+	 * @param behaviour The name of the behaviour of the tile (see TileRegistry), "" -> none
+	 * @param parameter The parameter of the behaviour, "" -> none
+	 * @param line The line of the tile in the tileset file, used in error messages
+	 */
+	public void addBehaviour(Integer id, String behaviour, String parameter, int line) {
+		behaviours.put(id, behaviour);
+		parameters.put(id, parameter);
+		lines.put(id, line);
 	}
 	
 	
@@ -34,6 +57,51 @@ public class Tileset {
 		return idImages.get(in);
 	}
 	
+	/**
+	 * 
+	 * @param size The width and height of the image
+	 * @return The image of the tile scaled to the size, null -> no image
+	 */
+	public BufferedImage getImage(String name, int size) {
+		Integer id = ids.get(name);
+		return id == null ? null : getImage(id, size);
+	}
+	
+	/**
+	 * The images are scaled once per size, drawing them needs no scaling
+	 * @param size The width and height of the image
+	 * @return The image of the tile scaled to the size, null -> no image
+	 */
+	public synchronized BufferedImage getImage(Integer id, int size) {
+		Map<Integer, BufferedImage> scaled = scaledImages.get(size);
+		if(scaled == null) {
+			scaled = new HashMap<Integer, BufferedImage>();
+			for (Integer imageId : idImages.keySet()) {
+				BufferedImage image = idImages.get(imageId);
+				if(image != null) scaled.put(imageId, ImageLoader.scaleImage(image, size, size));
+			}
+			scaledImages.put(size, scaled);
+		}
+		return scaled.get(id);
+	}
+	
+	public String getBehaviour(Integer id) {
+		return behaviours.get(id);
+	}
+	
+	public String getParameter(Integer id) {
+		return parameters.get(id);
+	}
+	
+	/**
+	 * 
+	 * @return The line of the tile in the tileset file, -1 -> unknown
+	 */
+	public int getLine(Integer id) {
+		Integer line = lines.get(id);
+		return line == null ? -1 : line;
+	}
+	
 	
 	public Map<String, BufferedImage> getImages() {
 		return images;
@@ -15,16 +15,25 @@ public class TilesetLoader {
 		Tileset tileset = new Tileset();
 		
 		String line = bufferedReader.readLine();
+		int lineNumber = 3;
 		while (line != null) {
 			String[] values = line.split(",");
 			if(!values[0].equals("!")) {
 				int id = Integer.parseInt(values[0].trim());
 				int x = Integer.parseInt(values[2].trim());
 				int y = Integer.parseInt(values[3].trim());
-				tileset.addImage(values[1], id, tilesetImage.getSubimage(x * tileSize, y * tileSize, tileSize, tileSize));
+				//-1 -> not in the tileset, a copy instead of a subimage view, which would share the raster of the whole tileset
+				BufferedImage image = x < 0 || y < 0 ? null : ImageLoader.scaleImage(tilesetImage.getSubimage(x * tileSize, y * tileSize, tileSize, tileSize), tileSize, tileSize);
+				tileset.addImage(values[1], id, image);
+				
+				//Behaviour and parameter, used by the TileRegistry
+				String behaviour = values.length > 4 ? values[4].trim() : "";
+				String parameter = values.length > 5 ? values[5].trim() : "";
+				tileset.addBehaviour(id, behaviour, parameter, lineNumber);
 				
 			}
 			line = bufferedReader.readLine();
+			lineNumber++;
 			
 		}
 		
@@ -0,0 +1,67 @@
+package gameengine.util;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive ints, used where an ArrayList<Integer> would allocate on every add.
+ */
+public class IntList {
+
+	private int[] values;
+	private int size;
+	
+	public IntList() {
+		this(16);
+	}
+	
+	public IntList(int capacity) {
+		this.values = new int[Math.max(1, capacity)];
+	}
+	
+	public void add(int value) {
+		if(size == values.length) values = Arrays.copyOf(values, values.length * 2);
+		values[size++] = value;
+	}
+	
+	public void clear() {
+		size = 0;
+	}
+	
+	/**
+	 * Removes all values from the index on
+	 */
+	public void truncate(int size) {
+		if(size < this.size) this.size = size;
+	}
+	
+	/**
+	 * Removes the value at the index by moving the last value to its place (the order is not kept)
+	 */
+	public void removeSwap(int index) {
+		values[index] = values[--size];
+	}
+	
+	/**
+	 * Sorts the values in ascending order
+	 */
+	public void sort() {
+		Arrays.sort(values, 0, size);
+	}
+	
+	//------------------------------------Getters
+	public int get(int index) {
+		return values[index];
+	}
+	
+	public void set(int index, int value) {
+		values[index] = value;
+	}
+	
+	public int size() {
+		return size;
+	}
+	
+	public boolean isEmpty() {
+		return size == 0;
+	}
+}
@@ -1,24 +1,54 @@
 package gamelogic;
 
 import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
 
 import gameengine.loaders.ImageLoader;
 import gameengine.loaders.Tileset;
 import gameengine.loaders.TilesetLoader;
+import gamelogic.tiles.TileRegistry;
 
 public final class GameResources {
 
+	public static final String DEFAULT_DIRECTORY = "/workspaces/platformer/workspace/gfx";
+
 	public static Tileset tileset;
+	public static TileRegistry tileRegistry; //the tile types defined by the tileset
 	
 	public static BufferedImage enemy;
+	private static Map<Integer, BufferedImage> scaledEnemies = new HashMap<Integer, BufferedImage>(); //by size
 	
 	public static void load() {
+		load(DEFAULT_DIRECTORY);
+	}
+	
+	/**
+	 * Loads the resources from another directory, e.g. when running outside of the workspace
+	 * @param directory The directory containing tileset.txt, tileset.png and Enemy.png
+	 */
+	public static void load(String directory) {
 		try {
-			tileset = TilesetLoader.loadTileset("/workspaces/platformer/workspace/gfx/tileset.txt", ImageLoader.loadImage("/workspaces/platformer/workspace/gfx/tileset.png"));
+			tileset = TilesetLoader.loadTileset(directory + "/tileset.txt", ImageLoader.loadImage(directory + "/tileset.png"));
+			tileRegistry = new TileRegistry(tileset);
 			
-			enemy = ImageLoader.loadImage("/workspaces/platformer/workspace/gfx/Enemy.png");
+			enemy = ImageLoader.loadImage(directory + "/Enemy.png");
+			scaledEnemies.clear();
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
 	}
+	
+	/**
+	 * The image is scaled once per size, drawing it needs no scaling
+	 * @param size The width and height of the image
+	 */
+	public static synchronized BufferedImage getEnemy(int size) {
+		BufferedImage image = scaledEnemies.get(size);
+		if(image == null) {
+			image = ImageLoader.scaleImage(enemy, size, size);
+			scaledEnemies.put(size, image);
+		}
+		return image;
+	}
 }
@@ -0,0 +1,117 @@
+package gamelogic;
+
+import gameengine.loaders.LeveldataLoader;
+import gamelogic.level.Level;
+import gamelogic.level.LevelData;
+import gamelogic.player.InjectedPlayerInput;
+
+/**
+ * Runs a level without a window: the level is loaded and updated with a fixed timestep,
+ * the player is controlled by an InjectedPlayerInput.
+ * Used for benchmarks, batch simulations and validating replays.
+ */
+public class HeadlessRuntime {
+
+	public static final int DEFAULT_SCREEN_WIDTH = 1280;
+	public static final int DEFAULT_SCREEN_HEIGHT = 720;
+
+	private Level level;
+	private InjectedPlayerInput input;
+	private float stepSeconds;
+	private long steps;
+
+	/**
+	 *
+	 * @param resourceDirectory The directory of the graphics (see GameResources.load())
+	 * @param mapPath The path of the map file
+	 * @param screenWidth The width of the simulated screen, the camera depends on it
+	 * @param screenHeight The height of the simulated screen, the camera and the tile size depend on it
+	 * @param updatesPerSecond The number of updates per simulated second
+	 */
+	public HeadlessRuntime(String resourceDirectory, String mapPath, int screenWidth, int screenHeight, int updatesPerSecond) throws Exception {
+		this(resourceDirectory, mapPath, screenWidth, screenHeight, updatesPerSecond, false);
+	}
+
+	/**
+	 *
+	 * @param chunked true -> the map is streamed from a chunk file (see LeveldataLoader)
+	 */
+	public HeadlessRuntime(String resourceDirectory, String mapPath, int screenWidth, int screenHeight, int updatesPerSecond, boolean chunked) throws Exception {
+		GameResources.load(resourceDirectory);
+		LevelData leveldata = LeveldataLoader.loadLeveldata(mapPath, screenHeight, chunked);
+		this.level = new Level(leveldata, screenWidth, screenHeight);
+		this.input = new InjectedPlayerInput();
+		this.level.setPlayerInput(input);
+		this.stepSeconds = 1f / updatesPerSecond;
+	}
+
+	/**
+	 * Updates the level once
+	 */
+	public void step() {
+		level.update(stepSeconds);
+		steps++;
+	}
+
+	/**
+	 * Updates the level multiple times
+	 * @param count The number of updates
+	 */
+	public void step(int count) {
+		for (int i = 0; i < count; i++) {
+			step();
+		}
+	}
+
+	/**
+	 * Restarts the level, the player keeps the injected input
+	 */
+	public void restart() {
+		level.restartLevel();
+		level.setPlayerInput(input);
+	}
+
+	//------------------------------------Getters
+	public Level getLevel() {
+		return level;
+	}
+
+	public InjectedPlayerInput getInput() {
+		return input;
+	}
+
+	public long getSteps() {
+		return steps;
+	}
+
+	public float getStepSeconds() {
+		return stepSeconds;
+	}
+
+	/**
+	 * Simulates a level and prints how long the updates took
+	 * @param args resource directory, map file, number of updates, "chunked" to stream the map
+	 */
+	public static void main(String[] args) throws Exception {
+		System.setProperty("java.awt.headless", "true");
+		if(args.length < 2) {
+			System.out.println("Usage: HeadlessRuntime <resource directory> <map file> [updates] [chunked]");
+			return;
+		}
+		int updates = args.length > 2 ? Integer.parseInt(args[2]) : Main.UPDATES_PER_SECOND * 60;
+		boolean chunked = args.length > 3 && args[3].equals("chunked");
+
+		long loadStart = System.nanoTime();
+		HeadlessRuntime runtime = new HeadlessRuntime(args[0], args[1], DEFAULT_SCREEN_WIDTH, DEFAULT_SCREEN_HEIGHT, Main.UPDATES_PER_SECOND, chunked);
+		System.out.println("Loading: [" + (System.nanoTime() - loadStart) / 1000000 + "ms]");
+		runtime.getInput().setKeys(false, false, true, false); //walking to the right
+
+		long start = System.nanoTime();
+		for (int i = 0; i < updates && runtime.getLevel().isActive(); i++) {
+			runtime.step();
+		}
+		long time = System.nanoTime() - start;
+		System.out.println("Updates: [" + runtime.getSteps() + "] Time: [" + time / 1000000 + "ms] Per update: [" + time / Math.max(1, runtime.getSteps()) + "ns]");
+		System.out.println("Player dead: [" + runtime.getLevel().isPlayerDead() + "] Player win: [" + runtime.getLevel().isPlayerWin() + "]");
+	}
+}
@@ -1,8 +1,8 @@
 package gamelogic;
 
 import java.awt.Color;
-import java.awt.Graphics;
 
+import gameengine.graphics.RenderQueue;
 import gamelogic.player.Player;
 import gamelogic.tiledMap.Map;
 
@@ -32,11 +32,10 @@ public class LevelCompleteBar {
 		}
 	}
 
-	public void draw(Graphics g) {
-		g.setColor(Color.BLACK);
-		g.drawRect(x, y, width, height);
+	public void submit(RenderQueue queue, int layer) {
+		queue.drawRect(layer, Color.BLACK, x, y, width, height, null);
 		
-		g.fillOval((int)(x + levelComplete * width), y, height, height);
+		queue.fillOval(layer, Color.BLACK, (int)(x + levelComplete * width), y, height, height, null);
 	}
 
 }
@@ -7,6 +7,7 @@ import java.awt.Toolkit;
 import java.awt.event.KeyEvent;
 
 import gameengine.GameBase;
+import gameengine.graphics.FrameSnapshot;
 import gameengine.graphics.MyWindow;
 import gameengine.input.KeyboardInputManager;
 import gameengine.loaders.LeveldataLoader;
@@ -16,11 +17,18 @@ import gamelogic.level.PlayerDieListener;
 import gamelogic.level.PlayerWinListener;
 
 public class Main extends GameBase implements PlayerDieListener, PlayerWinListener, ScreenTransitionListener{
-	public static final int SCREEN_WIDTH = (int)Toolkit.getDefaultToolkit().getScreenSize().getWidth()-200;
-	public static final int SCREEN_HEIGHT = (int)Toolkit.getDefaultToolkit().getScreenSize().getHeight()-200;
 	public static final boolean DEBUGGING = false;
+	public static final int UPDATES_PER_SECOND = 120; //the simulation runs with a fixed rate
+	public static final int FRAMES_PER_SECOND = 60; //the rendering is limited to this rate
+	public static final boolean RENDER_THREAD = false; //simulation and rendering on separate threads, for several cores
 
-	private ScreenTransition screenTransition = new ScreenTransition();
+	//Layers of the hud
+	private static final int LAYER_COMPLETE_BAR = 0;
+	private static final int LAYER_SCREEN_TRANSITION = 1;
+
+	private int screenWidth;
+	private int screenHeight;
+	private ScreenTransition screenTransition;
 
 	private LevelData[] levels;
 	private Level currentLevel;
@@ -32,10 +40,21 @@ public class Main extends GameBase implements PlayerDieListener, PlayerWinListen
 	private long levelFinishTime;
 	
 	private LevelCompleteBar levelCompleteBar;
+	private FrameSnapshot frame = new FrameSnapshot(); //used by draw(), without a render thread
 
 	public static void main(String[] args) {
-		Main main = new Main();
-		main.start("Eden Jump", SCREEN_WIDTH, SCREEN_HEIGHT);
+		Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
+		Main main = new Main((int)screenSize.getWidth()-200, (int)screenSize.getHeight()-200);
+		main.setFixedTimestep(UPDATES_PER_SECOND, GameBase.DEFAULT_MAX_CATCH_UP_STEPS);
+		main.setTargetFps(FRAMES_PER_SECOND);
+		main.setRenderThread(RENDER_THREAD);
+		main.start("Eden Jump", main.screenWidth, main.screenHeight);
+	}
+
+	public Main(int screenWidth, int screenHeight) {
+		this.screenWidth = screenWidth;
+		this.screenHeight = screenHeight;
+		this.screenTransition = new ScreenTransition(screenWidth, screenHeight);
 	}
 
 	@Override
@@ -46,12 +65,13 @@ public class Main extends GameBase implements PlayerDieListener, PlayerWinListen
 
 		levels = new LevelData[2];
 		try {
-			levels[0] = LeveldataLoader.loadLeveldata("/workspaces/platformer/workspace/maps/MMAP1.txt");
-			levels[1] = LeveldataLoader.loadLeveldata("/workspaces/platformer/workspace/maps/MMAP2.txt");
+			levels[0] = LeveldataLoader.loadLeveldata("/workspaces/platformer/workspace/maps/MMAP1.txt", screenHeight);
+			levels[1] = LeveldataLoader.loadLeveldata("/workspaces/platformer/workspace/maps/MMAP2.txt", screenHeight);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
-		currentLevel = new Level(levels[currentLevelIndex]);
+		currentLevel = new Level(levels[currentLevelIndex], screenWidth, screenHeight);
+		currentLevel.setConcurrentDrawing(isRenderThread());
 
 		currentLevel.addPlayerDieListener(this);
 		currentLevel.addPlayerWinListener(this);
@@ -63,15 +83,15 @@ public class Main extends GameBase implements PlayerDieListener, PlayerWinListen
 		numberOfTries = 0;
 		levelStartTime = System.currentTimeMillis();
 		
-		levelCompleteBar = new LevelCompleteBar(100, 10, SCREEN_WIDTH - 200, 10, currentLevel.getPlayer());
+		levelCompleteBar = new LevelCompleteBar(100, 10, screenWidth - 200, 10, currentLevel.getPlayer());
 	}
 	
 	//-----------------------------------------------------Screen Transition Listener
 	@Override
 	public void onTransitionActivationFinished() {
 		if(currentLevel.isPlayerDead()) {
-			currentLevel.restartLevel();
-			levelCompleteBar = new LevelCompleteBar(100, 10, SCREEN_WIDTH - 200, 10, currentLevel.getPlayer());
+			currentLevel.restartFromCheckpoint();
+			levelCompleteBar = new LevelCompleteBar(100, 10, screenWidth - 200, 10, currentLevel.getPlayer());
 		}
 		if(currentLevel.isPlayerWin()) {
 			if(currentLevelIndex < levels.length-1) {
@@ -91,8 +111,8 @@ public class Main extends GameBase implements PlayerDieListener, PlayerWinListen
 		numberOfTries++;
 		levelStartTime = System.currentTimeMillis();
 		if(DEBUGGING) {
-			currentLevel.restartLevel();
-			levelCompleteBar = new LevelCompleteBar(100, 10, SCREEN_WIDTH - 200, 10, currentLevel.getPlayer());
+			currentLevel.restartFromCheckpoint();
+			levelCompleteBar = new LevelCompleteBar(100, 10, screenWidth - 200, 10, currentLevel.getPlayer());
 			return;
 		}
 		screenTransition.showLoseScreen(numberOfTries);
@@ -112,11 +132,12 @@ public class Main extends GameBase implements PlayerDieListener, PlayerWinListen
 		numberOfTries = 0;
 		if(currentLevelIndex < levels.length-1) {
 			currentLevelIndex++;
-			currentLevel = new Level(levels[currentLevelIndex]);
+			currentLevel = new Level(levels[currentLevelIndex], screenWidth, screenHeight);
+			currentLevel.setConcurrentDrawing(isRenderThread());
 
 			currentLevel.addPlayerDieListener(this);
 			currentLevel.addPlayerWinListener(this);
-			levelCompleteBar = new LevelCompleteBar(100, 10, SCREEN_WIDTH - 200, 10, currentLevel.getPlayer());
+			levelCompleteBar = new LevelCompleteBar(100, 10, screenWidth - 200, 10, currentLevel.getPlayer());
 		}
 	}
 
@@ -134,19 +155,30 @@ public class Main extends GameBase implements PlayerDieListener, PlayerWinListen
 
 	@Override
 	public void draw(Graphics g) {
+		draw(g, 1);
+	}
+
+	@Override
+	public void draw(Graphics g, float alpha) {
+		frame.clear();
+		submit(frame, alpha);
+		frame.draw(g);
+	}
+
+	@Override
+	public void submit(FrameSnapshot frame, float alpha) {
 		
-		drawBackground(g);
+		submitBackground(frame);
 		//Camera-translate
-		currentLevel.draw(g);
+		currentLevel.submit(frame, alpha);
 		//- Camera-translate
 		
-		levelCompleteBar.draw(g);
+		levelCompleteBar.submit(frame.getHud(), LAYER_COMPLETE_BAR);
 		
-		screenTransition.draw(g);
+		screenTransition.submit(frame.getHud(), LAYER_SCREEN_TRANSITION);
 	}
 
-	public void drawBackground(Graphics g) {
-		g.setColor(Color.WHITE);
-		g.fillRect(0, 0-MyWindow.getInsetY(), SCREEN_WIDTH, SCREEN_HEIGHT+MyWindow.getInsetY()*2);
+	public void submitBackground(FrameSnapshot frame) {
+		frame.getBackground().fillRect(0, Color.WHITE, 0, 0-MyWindow.getInsetY(), screenWidth, screenHeight+MyWindow.getInsetY()*2, null);
 	}
 }
@@ -2,14 +2,13 @@ package gamelogic;
 
 import java.awt.Color;
 import java.awt.Font;
-import java.awt.Graphics;
 import java.awt.Rectangle;
 import java.awt.event.KeyEvent;
 import java.util.ArrayList;
 import java.util.List;
 
-import gameengine.graphics.MyGraphics;
 import gameengine.graphics.MyWindow;
+import gameengine.graphics.RenderQueue;
 import gameengine.input.KeyboardInputManager;
 import gameengine.maths.Vector2D;
 
@@ -21,24 +20,26 @@ public class ScreenTransition {
 	private Vector2D position;
 	private int width;
 	private int height;
-	private float velocity = Main.SCREEN_WIDTH * 1.5f;
+	private float velocity;
 
 	private String text[];
 	private Rectangle textBox[];
-	private Font font = new Font("Arial", Font.BOLD, Main.SCREEN_WIDTH/10);
+	private Font font;
 
 	private List<ScreenTransitionListener> listeners = new ArrayList<>();
 
-	public ScreenTransition() {
-		this.position = new Vector2D(-Main.SCREEN_WIDTH, 0);
-		this.width = Main.SCREEN_WIDTH;
-		this.height = Main.SCREEN_HEIGHT;
+	public ScreenTransition(int width, int height) {
+		this.position = new Vector2D(-width, 0);
+		this.width = width;
+		this.height = height;
+		this.velocity = width * 1.5f;
+		this.font = new Font("Arial", Font.BOLD, width/10);
 
 		text = new String[2];
 
 		textBox = new Rectangle[2];
-		textBox[0] = new Rectangle(MyWindow.getInsetX(), MyWindow.getInsetY()+20, Main.SCREEN_WIDTH, 200);
-		textBox[1] = new Rectangle(MyWindow.getInsetX(), Main.SCREEN_HEIGHT/2, Main.SCREEN_WIDTH, 200);
+		textBox[0] = new Rectangle(MyWindow.getInsetX(), MyWindow.getInsetY()+20, width, 200);
+		textBox[1] = new Rectangle(MyWindow.getInsetX(), height/2, width, 200);
 	}
 
 	public void update(float tslf) {
@@ -55,8 +56,8 @@ public class ScreenTransition {
 			//Deactivating
 			else if(isDeactivating) {
 				position.x += velocity * tslf;
-				if(Main.SCREEN_WIDTH < position.x) {
-					position.x = -Main.SCREEN_WIDTH;
+				if(width < position.x) {
+					position.x = -width;
 
 					isDeactivating = false;
 					isActive = false;
@@ -69,27 +70,23 @@ public class ScreenTransition {
 		}
 	}
 
-	public void draw(Graphics g) {
+	public void submit(RenderQueue queue, int layer) {
 		if(isActive) {
-			g.translate((int)position.x, (int)position.y);
+			int x = (int)position.x;
+			int y = (int)position.y;
 			
-			g.setColor(Color.BLACK);
-			g.fillRect(0, 0-MyWindow.getInsetY(), (int)width, (int)height+MyWindow.getInsetY()*2);
+			queue.fillRect(layer, Color.BLACK, x, y-MyWindow.getInsetY(), (int)width, (int)height+MyWindow.getInsetY()*2, null);
 
 			if(text != null) {
-				g.setColor(Color.WHITE);
-
 				for (int i = 0; i < text.length; i++) {
-					MyGraphics.drawCenteredString(g, text[i], textBox[i], font);
+					queue.drawCenteredString(layer, Color.WHITE, text[i], font, x + textBox[i].x, y + textBox[i].y, textBox[i].width, textBox[i].height, null);
 				}
 			}
-			
-			g.translate((int)-position.x, (int)-position.y);
 		}
 	}
 
 	public void activate() {
-		position.x = -Main.SCREEN_WIDTH;
+		position.x = -width;
 		isActive = true;
 		isActivating = true;
 		isDeactivating = false;
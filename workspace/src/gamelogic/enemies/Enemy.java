@@ -1,41 +1,74 @@
 package gamelogic.enemies;
 
-import java.awt.Graphics;
+import java.awt.Color;
 import java.awt.image.BufferedImage;
 
-import gameengine.PhysicsObject;
-import gameengine.hitbox.RectHitbox;
+import gameengine.EntityStore;
+import gameengine.graphics.RenderQueue;
+import gameengine.hitbox.Hitbox;
+import gameengine.util.IntList;
 import gamelogic.GameResources;
 import gamelogic.level.Level;
 
-public class Enemy extends PhysicsObject{
+/**
+ * An enemy walking left and right. Its physics state lives in an EntityStore,
+ * the enemy itself is only a view on its index in the store.
+ */
+public class Enemy {
 
-	private float walkSpeed = 80;
+	public static final float WALK_SPEED = 80;
+	private static final int HITBOX_OFFSET = 10;
+
+	private EntityStore store;
+	private int index;
 	private BufferedImage image;
 	
-	public Enemy(float x, float y, Level level) {
-		super(x, y,(int)(level.getLevelData().getTileSize()*1.5), (int)(level.getLevelData().getTileSize()*1.5), level);
-		movementVector.x = walkSpeed;
-		this.hitbox = new RectHitbox(this, 10, 10, width - 10, height - 10);
-		this.image = GameResources.enemy;
+	public Enemy(float x, float y, Level level, EntityStore store) {
+		int size = (int)(level.getLevelData().getTileSize()*1.5);
+		this.store = store;
+		this.index = store.add(x, y, size, size, HITBOX_OFFSET, HITBOX_OFFSET, size - 2*HITBOX_OFFSET, size - 2*HITBOX_OFFSET);
+		store.setMovementX(index, WALK_SPEED);
+		this.image = GameResources.getEnemy(size);
 	}
 	
-	@Override
-	public void update(float tslf) {
-		super.update(tslf);
-		
-		if(collisionMatrix[LEF] != null) {
-			movementVector.x = walkSpeed;
-		} else if(collisionMatrix[RIG] != null) {
-			movementVector.x = -walkSpeed;
+	/**
+	 * Turns around every enemy which walked into a wall in the last update of the store
+	 * @param enemies The indices of the enemies updated in the last update of the store
+	 */
+	public static void patrol(EntityStore store, IntList enemies) {
+		for (int e = 0; e < enemies.size(); e++) {
+			int i = enemies.get(e);
+			int flags = store.getCollisionFlags(i);
+			if((flags & EntityStore.COLLIDED_LEF) != 0) {
+				store.setMovementX(i, WALK_SPEED);
+			} else if((flags & EntityStore.COLLIDED_RIG) != 0) {
+				store.setMovementX(i, -WALK_SPEED);
+			}
 		}
 	}
 	
-	@Override
-	public void draw(Graphics g) {
-		g.drawImage(image, (int)position.x, (int)position.y, width, height, null);
+	/**
+	 * Submits the enemy to a render queue, between two updates
+	 * @param alpha How far the time has advanced from the last update to the next one (0 - 1)
+	 */
+	public void submit(RenderQueue queue, float alpha) {
+		queue.drawImage(Level.LAYER_ENEMIES, image, (int)store.getInterpolatedX(index, alpha), (int)store.getInterpolatedY(index, alpha), null);
 		
-		hitbox.draw(g);
+		if(Hitbox.SHOW_HITBOXES) {
+			queue.drawRect(Level.LAYER_ENEMIES, Color.GREEN, (int)store.getHitboxX(index), (int)store.getHitboxY(index), store.getHitboxWidth(index), store.getHitboxHeight(index), null);
+		}
+	}
+	
+	//------------------------------------Getters
+	public int getIndex() {
+		return index;
+	}
+	
+	public float getX() {
+		return store.getX(index);
 	}
 	
+	public float getY() {
+		return store.getY(index);
+	}
 }
\ No newline at end of file
@@ -4,138 +4,213 @@ import java.awt.Graphics;
 import java.util.ArrayList;
 import java.util.List;
 
-import gameengine.PhysicsObject;
+import gameengine.ActivityRegions;
+import gameengine.EntityStore;
 import gameengine.graphics.Camera;
+import gameengine.graphics.FrameSnapshot;
+import gameengine.graphics.RenderQueue;
+import gameengine.hitbox.RectHitbox;
+import gameengine.hitbox.SpatialHash;
+import gameengine.loaders.ChunkFile;
 import gameengine.loaders.Mapdata;
-import gameengine.loaders.Tileset;
+import gameengine.util.IntList;
 import gamelogic.GameResources;
-import gamelogic.Main;
 import gamelogic.enemies.Enemy;
 import gamelogic.player.Player;
+import gamelogic.player.PlayerInput;
+import gamelogic.tiledMap.ChunkedTileGrid;
+import gamelogic.tiledMap.FluidSimulation;
 import gamelogic.tiledMap.Map;
-import gamelogic.tiles.Flag;
+import gamelogic.tiledMap.TileLayerCache;
 import gamelogic.tiles.Flower;
 import gamelogic.tiles.Gas;
-import gamelogic.tiles.SolidTile;
-import gamelogic.tiles.Spikes;
 import gamelogic.tiles.Tile;
-import gamelogic.tiles.Water;
+import gamelogic.tiles.TileRegistry;
 
 public class Level {
 
+	//Layers of the render queue, lower layers are drawn first
+	public static final int LAYER_TILES = 0; //the pre-rendered chunks of the static tiles
+	public static final int LAYER_DYNAMIC_TILES = 1;
+	public static final int LAYER_ENEMIES = 2;
+	public static final int LAYER_PLAYER = 3;
+
 	private LevelData leveldata;
 	private Map map;
-	private Enemy[] enemies;
-	public static Player player;
+	private Enemy[] enemies; //views on enemyStore
+	private EntityStore enemyStore;
+	private ActivityRegions enemyRegions; //only the enemies near the camera are simulated
+	private Player player;
 	private Camera camera;
+	private SpreadEngine spreadEngine; //water and gas of the flowers
+	private FluidSimulation fluids; //lets the water and gas of the flowers flow
+	private TileLayerCache tileCache; //images of the static tiles
+	private RenderQueue renderQueue = new RenderQueue();
 
 	private boolean active;
 	private boolean playerDead;
 	private boolean playerWin;
 
-	private ArrayList<Enemy> enemiesList = new ArrayList<>();
-	private ArrayList<Flower> flowers = new ArrayList<>();
+	private LevelSnapshot start; //state after loading, restored by restartLevel()
+	private LevelSnapshot checkpoint; //null -> the player starts over at the start
+
+	private SpatialHash enemyHash; //rebuilt every tick, ids are the indices in enemies
+	private IntList nearbyEnemies = new IntList(); //result of the last query of enemyHash
+	private IntList touchingEnemies = new IntList(); //enemies overlapping the player
 
 	private List<PlayerDieListener> dieListeners = new ArrayList<>();
 	private List<PlayerWinListener> winListeners = new ArrayList<>();
 
 	private Mapdata mapdata;
+	private int screenWidth;
+	private int screenHeight;
+	private PlayerInput playerInput = new PlayerInput(); //reads the keyboard unless another input is set
 	private int width;
 	private int height;
 	private int tileSize;
-	private Tileset tileset;
-	public static float GRAVITY = 70;
-
-	public Level(LevelData leveldata) {
+	private TileRegistry tileRegistry;
+
+	private static final int AIR = 0; //id of the air, value 0 of the map file
+	public static final float GRAVITY = 70;
+	public static final int DEFAULT_PARALLEL_ENEMY_THRESHOLD = EntityStore.DEFAULT_PARALLEL_THRESHOLD; //below this number of enemies the enemies are updated on the game thread
+
+	//Enemies only read the map and write their own state, so they can be updated on all cores
+	private boolean parallelEnemies = true;
+	private int parallelEnemyThreshold = DEFAULT_PARALLEL_ENEMY_THRESHOLD;
+
+	/**
+	 * 
+	 * @param leveldata The level to build
+	 * @param screenWidth The width of the screen, used for the camera
+	 * @param screenHeight The height of the screen, used for the camera
+	 */
+	public Level(LevelData leveldata, int screenWidth, int screenHeight) {
 		this.leveldata = leveldata;
+		this.screenWidth = screenWidth;
+		this.screenHeight = screenHeight;
 		mapdata = leveldata.getMapdata();
 		width = mapdata.getWidth();
 		height = mapdata.getHeight();
 		tileSize = mapdata.getTileSize();
-		restartLevel();
+		build();
+		start = new LevelSnapshot(map.createSnapshot(), leveldata.getPlayerX() * tileSize, leveldata.getPlayerY() * tileSize, enemyStore.copy(), fluids.copy());
+		restoreSnapshot(start);
 	}
 
 	public LevelData getLevelData(){
 		return leveldata;
 	}
 
-	public void restartLevel() {
-		int[][] values = mapdata.getValues();
-		Tile[][] tiles = new Tile[width][height];
-
-		for (int x = 0; x < width; x++) {
-			int xPosition = x;
-			for (int y = 0; y < height; y++) {
-				int yPosition = y;
-
-				tileset = GameResources.tileset;
-
-				tiles[x][y] = new Tile(xPosition, yPosition, tileSize, null, false, this);
-				if (values[x][y] == 0)
-					tiles[x][y] = new Tile(xPosition, yPosition, tileSize, null, false, this); // Air
-				else if (values[x][y] == 1)
-					tiles[x][y] = new SolidTile(xPosition, yPosition, tileSize, tileset.getImage("Solid"), this);
-
-				else if (values[x][y] == 2)
-					tiles[x][y] = new Spikes(xPosition, yPosition, tileSize, Spikes.HORIZONTAL_DOWNWARDS, this);
-				else if (values[x][y] == 3)
-					tiles[x][y] = new Spikes(xPosition, yPosition, tileSize, Spikes.HORIZONTAL_UPWARDS, this);
-				else if (values[x][y] == 4)
-					tiles[x][y] = new Spikes(xPosition, yPosition, tileSize, Spikes.VERTICAL_LEFTWARDS, this);
-				else if (values[x][y] == 5)
-					tiles[x][y] = new Spikes(xPosition, yPosition, tileSize, Spikes.VERTICAL_RIGHTWARDS, this);
-				else if (values[x][y] == 6)
-					tiles[x][y] = new SolidTile(xPosition, yPosition, tileSize, tileset.getImage("Dirt"), this);
-				else if (values[x][y] == 7)
-					tiles[x][y] = new SolidTile(xPosition, yPosition, tileSize, tileset.getImage("Grass"), this);
-				else if (values[x][y] == 8)
-					enemiesList.add(new Enemy(xPosition*tileSize, yPosition*tileSize, this)); // TODO: objects vs tiles
-				else if (values[x][y] == 9)
-					tiles[x][y] = new Flag(xPosition, yPosition, tileSize, tileset.getImage("Flag"), this);
-				else if (values[x][y] == 10) {
-					tiles[x][y] = new Flower(xPosition, yPosition, tileSize, tileset.getImage("Flower1"), this, 1);
-					flowers.add((Flower) tiles[x][y]);
-				} else if (values[x][y] == 11) {
-					tiles[x][y] = new Flower(xPosition, yPosition, tileSize, tileset.getImage("Flower2"), this, 2);
-					flowers.add((Flower) tiles[x][y]);
-				} else if (values[x][y] == 12)
-					tiles[x][y] = new SolidTile(xPosition, yPosition, tileSize, tileset.getImage("Solid_down"), this);
-				else if (values[x][y] == 13)
-					tiles[x][y] = new SolidTile(xPosition, yPosition, tileSize, tileset.getImage("Solid_up"), this);
-				else if (values[x][y] == 14)
-					tiles[x][y] = new SolidTile(xPosition, yPosition, tileSize, tileset.getImage("Solid_middle"), this);
-				else if (values[x][y] == 15)
-					tiles[x][y] = new Gas(xPosition, yPosition, tileSize, tileset.getImage("GasOne"), this, 1);
-				else if (values[x][y] == 16)
-					tiles[x][y] = new Gas(xPosition, yPosition, tileSize, tileset.getImage("GasTwo"), this, 2);
-				else if (values[x][y] == 17)
-					tiles[x][y] = new Gas(xPosition, yPosition, tileSize, tileset.getImage("GasThree"), this, 3);
-				else if (values[x][y] == 18)
-					tiles[x][y] = new Water(xPosition, yPosition, tileSize, tileset.getImage("Falling_water"), this, 0);
-				else if (values[x][y] == 19)
-					tiles[x][y] = new Water(xPosition, yPosition, tileSize, tileset.getImage("Full_water"), this, 3);
-				else if (values[x][y] == 20)
-					tiles[x][y] = new Water(xPosition, yPosition, tileSize, tileset.getImage("Half_water"), this, 2);
-				else if (values[x][y] == 21)
-					tiles[x][y] = new Water(xPosition, yPosition, tileSize, tileset.getImage("Quarter_water"), this, 1);
+	/**
+	 * Builds the map, the camera and the enemies once, restarting only restores their state
+	 */
+	private void build() {
+		tileRegistry = GameResources.tileRegistry;
+		Tile[] types = tileRegistry.createTypes(tileSize);
+		IntList enemySpawns = new IntList(); //column and row of every enemy
+		if (mapdata.isChunked()) {
+			ChunkFile chunkFile = mapdata.getChunkFile();
+			for (int spawn : chunkFile.getSpawns()) {
+				enemySpawns.add(spawn);
+			}
+			map = new Map(width, height, tileSize, types, new ChunkedTileGrid(chunkFile, types.length, leveldata.getChunkBudget()));
+		} else {
+			IntList gasCells = new IntList();
+			map = new Map(width, height, tileSize, types, readIds(types, enemySpawns, gasCells));
+			for (int i = 0; i < gasCells.size(); i++) {
+				Gas.shade(map, map.getCol(gasCells.get(i)), map.getRow(gasCells.get(i))); // intensity of the gas of the map file
 			}
-
 		}
-		enemies = new Enemy[enemiesList.size()];
-		map = new Map(width, height, tileSize, tiles);
-		camera = new Camera(Main.SCREEN_WIDTH, Main.SCREEN_HEIGHT, 0, map.getFullWidth(), map.getFullHeight());
-		for (int i = 0; i < enemiesList.size(); i++) {
-			enemies[i] = new Enemy(enemiesList.get(i).getX(), enemiesList.get(i).getY(), this);
+		spreadEngine = new SpreadEngine(map, tileRegistry);
+		fluids = new FluidSimulation(map, tileRegistry);
+		tileCache = new TileLayerCache(map, TileLayerCache.DEFAULT_BUDGET);
+		enemies = new Enemy[enemySpawns.size() / 2];
+		camera = new Camera(screenWidth, screenHeight, 0, map.getFullWidth(), map.getFullHeight());
+		enemyStore = new EntityStore(GRAVITY * GRAVITY, enemies.length);
+		enemyStore.setParallel(parallelEnemies, parallelEnemyThreshold);
+		for (int i = 0; i < enemies.length; i++) {
+			enemies[i] = new Enemy(enemySpawns.get(2 * i) * tileSize, enemySpawns.get(2 * i + 1) * tileSize, this, enemyStore);
 		}
-		player = new Player(leveldata.getPlayerX() * map.getTileSize(), leveldata.getPlayerY() * map.getTileSize(),
-				this);
+		enemyHash = new SpatialHash(tileSize * 2, enemies.length);
+	}
+
+	/**
+	 * Sets the level back to the state after loading, the checkpoint is removed
+	 */
+	public void restartLevel() {
+		checkpoint = null;
+		restoreSnapshot(start);
+	}
+
+	/**
+	 * Sets the level back to the last checkpoint, or to the start if there is none
+	 */
+	public void restartFromCheckpoint() {
+		restoreSnapshot(checkpoint != null ? checkpoint : start);
+	}
+
+	/**
+	 * Saves the current state as the checkpoint, replacing the last one. Called when the player picks a flower.
+	 */
+	public void saveCheckpoint() {
+		checkpoint = createSnapshot();
+	}
+
+	/**
+	 * Saves the current state of the map, the enemies and the position of the player.
+	 * The map is copied on write, so a snapshot only costs the cells changed after it.
+	 */
+	public LevelSnapshot createSnapshot() {
+		return new LevelSnapshot(map.createSnapshot(), player.getX(), player.getY(), enemyStore.copy(), fluids.copy());
+	}
+
+	/**
+	 * Sets the level back to a snapshot, snapshots created after it can no longer be restored.
+	 * Nothing is rebuilt, the cost depends on the changed cells and the number of enemies.
+	 */
+	public void restoreSnapshot(LevelSnapshot snapshot) {
+		spreadEngine.clear();
+		map.restoreSnapshot(snapshot.getMapSnapshot());
+		fluids.restore(snapshot.getFluids());
+		enemyStore.restore(snapshot.getEnemies());
+		enemyRegions = new ActivityRegions(enemyStore, map, leveldata.getActiveMargin(), leveldata.getCoarseMargin());
+		updateEnemyHash();
+		player = new Player(snapshot.getPlayerX(), snapshot.getPlayerY(), this);
+		player.setInput(playerInput);
 		camera.setFocusedObject(player);
+		map.focus(camera.getX(), camera.getY(), camera.getWidth(), camera.getHeight());
+		map.flushChanges(); // the restored cells are drawn again
 
 		active = true;
 		playerDead = false;
 		playerWin = false;
 	}
 
+	/**
+	 * Reads the ids of the cells from the values of the map file, the enemies are added to the spawns
+	 * and the cells of gas to gasCells
+	 */
+	private short[] readIds(Tile[] types, IntList enemySpawns, IntList gasCells) {
+		int[][] values = mapdata.getValues();
+		short[] ids = new short[width * height];
+
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				int value = values[x][y];
+				if (tileRegistry.isEnemy(value)) {
+					enemySpawns.add(x); // TODO: objects vs tiles
+					enemySpawns.add(y);
+					value = AIR;
+				} else if (value < 0 || value >= types.length) {
+					value = AIR;
+				}
+				ids[x * height + y] = (short) value;
+				if (types[value] instanceof Gas) gasCells.add(x * height + y);
+			}
+		}
+		return ids;
+	}
+
 	public void onPlayerDeath() {
 		active = false;
 		playerDead = true;
@@ -161,200 +236,148 @@ public class Level {
                 }
                 
                 // Check spike collisions
-                if (player.getCollisionMatrix()[PhysicsObject.BOT] instanceof Spikes ||
-                    player.getCollisionMatrix()[PhysicsObject.TOP] instanceof Spikes ||
-                    player.getCollisionMatrix()[PhysicsObject.LEF] instanceof Spikes ||
-                    player.getCollisionMatrix()[PhysicsObject.RIG] instanceof Spikes) {
+                if (player.isInContact(Tile.SPIKES)) {
                     onPlayerDeath();
                 }
+            }
 
-                // Check enemy collisions
-                for (int i = 0; i < enemies.length; i++) {
-                    enemies[i].update(tslf);
-                    if (player.getHitbox().isIntersecting(enemies[i].getHitbox())) {
-                        onPlayerDeath();
-                    }
-                }
-            } else {
-                for (int i = 0; i < enemies.length; i++) {
-                    enemies[i].update(tslf);
+            // Update the enemies
+            enemyRegions.update(camera, tslf);
+            Enemy.patrol(enemyStore, enemyRegions.getAwake());
+            updateEnemyHash();
+
+            if (!player.isInvincible()) {
+                // Check enemy collisions, only the enemies near the player are tested
+                RectHitbox playerHitbox = player.getHitbox();
+                nearbyEnemies.clear();
+                touchingEnemies.clear();
+                enemyHash.query(playerHitbox.getX(), playerHitbox.getY(), playerHitbox.getWidth(), playerHitbox.getHeight(), nearbyEnemies);
+                if (enemyStore.findHitboxOverlaps(playerHitbox.getX(), playerHitbox.getY(), playerHitbox.getWidth(), playerHitbox.getHeight(), nearbyEnemies, touchingEnemies) > 0) {
+                    onPlayerDeath();
                 }
             }
 
-            // Flower collection logic
-            for (int i = 0; i < flowers.size(); i++) {
-                if (flowers.get(i).getHitbox().isIntersecting(player.getHitbox())) {
-                    if(flowers.get(i).getType() == 1)
-                        water(flowers.get(i).getCol(), flowers.get(i).getRow(), map, 3);
+            // Flower collection logic, picking a flower saves a checkpoint
+            if (player.isInContact(Tile.FLOWER)) {
+                boolean saved = !active; // no checkpoint for a player who died in this tick
+                for (int i = 0; i < player.getContactCount(); i++) {
+                    int cell = player.getContact(i);
+                    Tile tile = map.getTile(cell);
+                    // the flower could already be replaced by water or gas
+                    if (!(tile instanceof Flower)) continue;
+                    Flower flower = (Flower) tile;
+                    // the flower is replaced when its spread starts
+                    if (spreadEngine.isPending(map.getCol(cell), map.getRow(cell))) continue;
+                    if (!saved) {
+                        // before the spread starts, so the flower is picked again after restarting from the checkpoint
+                        saveCheckpoint();
+                        saved = true;
+                    }
+                    if(flower.getType() == 1)
+                        spreadEngine.addWater(map.getCol(cell), map.getRow(cell), 3);
                     else
-                        addGas(flowers.get(i).getCol(), flowers.get(i).getRow(), map, 20, new ArrayList<Gas>());
-                    flowers.remove(i);
-                    i--;
+                        spreadEngine.addGas(map.getCol(cell), map.getRow(cell), 20);
                 }
             }
 
-            // Update the map
+            // Touching a flag wins the level
+            if (player.isInContact(Tile.FLAG)) {
+                onPlayerWin();
+            }
+
+            // Spread the water and gas of the flowers, a few cells per tick
+            spreadEngine.update();
+            fluids.update(tslf);
+
+            // Update the dynamic tiles
             map.update(tslf);
 
             // Update the camera
             camera.update(tslf);
+            map.focus(camera.getX(), camera.getY(), camera.getWidth(), camera.getHeight());
+
+            // Tell the caches about the cells changed in this tick
+            map.flushChanges();
         }
     }
 	
 	
-	//#############################################################################################################
-	//Your code goes here! 
-	//Please make sure you read the rubric/directions carefully and implement the solution recursively!
-	
-	
-	private void addGas(int col, int row, Map map, int numSquaresToFill, ArrayList<Gas> placedThisRound) {
-		Gas g = new Gas (col, row, tileSize, tileset.getImage("GasOne"), this, 0);
-		map.addTile(col,row,g);
-		placedThisRound.add(g);
-		numSquaresToFill--;
-		while(placedThisRound.size() > 0 && numSquaresToFill > 0) {
-			row = placedThisRound.get(0).getRow();
-			col = placedThisRound.get(0).getCol();
-			
-			for (int k = -1; k <= 1; k++){
-				for (int i = 0; i >= -1; i-=2) {
-					if(((width > col+i && 0 <= col+i) && (height > row+k && 0 <= row+k)) && !map.getTiles()[col+i][row+k].isSolid() && !(map.getTiles()[col+i][row+k] instanceof Gas) && numSquaresToFill > 0 && !(map.getTiles()[col+i][row+k] instanceof Flag)){
-						Gas g2 = new Gas (col+i, row+k, tileSize, tileset.getImage("GasOne"), this, 0);
-						map.addTile(col+i,row+k,g2);
-						placedThisRound.add(g2);
-						numSquaresToFill--;
-					}
-					if (i==0){
-						i+=3;
-					}
-				}
-			}
-			placedThisRound.remove(0);
+	private void updateEnemyHash() {
+		enemyHash.clear();
+		IntList awake = enemyRegions.getAwake(); // sleeping enemies are never near the player or on the camera
+		for (int e = 0; e < awake.size(); e++) {
+			int i = awake.get(e);
+			enemyHash.insert(i, enemyStore.getX(i), enemyStore.getY(i), enemyStore.getWidth(i), enemyStore.getHeight(i));
 		}
 	}
+	
 
 
 
-	private void water(int col, int row, Map map, int fullness) {
-
-    Water w;
-    switch (fullness) {
-        case 3:
-            w = new Water(col, row, tileSize, tileset.getImage("Full_water"), this, fullness);
-            break;
-        case 2:
-            w = new Water(col, row, tileSize, tileset.getImage("Half_water"), this, fullness);
-            break;
-        case 1:
-            w = new Water(col, row, tileSize, tileset.getImage("Quarter_water"), this, fullness);
-            break;
-        default:
-            w = new Water(col, row, tileSize, tileset.getImage("Falling_water"), this, fullness);
-            break;
-    }
-    map.addTile(col, row, w);
-
-    // Try to move downward if possible
-    if (row + 1 < map.getTiles()[col].length && !map.getTiles()[col][row + 1].isSolid()) {
-
-        boolean nextIsWater = (row + 1 < map.getTiles()[col].length && map.getTiles()[col][row + 1] instanceof Water);
-        boolean belowNextIsSolid = (row + 2 < map.getTiles()[col].length && map.getTiles()[col][row + 2].isSolid());
-        boolean belowNextExists = (row + 2 < map.getTiles()[col].length);
-        boolean atBottom = (row + 2 == map.getTiles()[col].length);
-
-        if (!nextIsWater) {
-            if (belowNextExists && !belowNextIsSolid) {
-                water(col, row + 1, map, 0);
-            } else if (atBottom) {
-                water(col, row + 1, map, 0);
-            } else if (belowNextExists && belowNextIsSolid) {
-                water(col, row + 1, map, 3);
-            }
-        }
-
-    } else {
-        int maxCol = map.getTiles().length - 1;
-
-        if (col + 1 <= maxCol) {
-            boolean rightIsWater = map.getTiles()[col + 1][row] instanceof Water;
-            boolean rightIsSolid = map.getTiles()[col + 1][row].isSolid();
-            if (!rightIsWater && !rightIsSolid) {
-                int newFullness = (fullness > 1) ? fullness - 1 : fullness;
-                water(col + 1, row, map, newFullness);
-            }
-        }
+public void draw(Graphics g) {
+	   	 draw(g, 1);
+	    }
 
-        if (col - 1 >= 0) {
-            boolean leftIsWater = map.getTiles()[col - 1][row] instanceof Water;
-            boolean leftIsSolid = map.getTiles()[col - 1][row].isSolid();
-            if (!leftIsWater && !leftIsSolid) {
-                int newFullness = (fullness > 1) ? fullness - 1 : fullness;
-                water(col - 1, row, map, newFullness);
-            }
-        }
-    }
-}
+	/**
+	 * Draws the level between two updates
+	 * @param g The graphics to draw on
+	 * @param alpha How far the time has advanced from the last update to the next one (0 - 1)
+	 */
+	public void draw(Graphics g, float alpha) {
+	   	 int cameraX = (int) camera.getInterpolatedX(alpha);
+	   	 int cameraY = (int) camera.getInterpolatedY(alpha);
+	   	 submit(renderQueue, cameraX, cameraY, alpha);
+	   	 g.translate(-cameraX, -cameraY);
 
+	   	 // Everything at once, sorted by layer, composite and image
+	   	 renderQueue.flush(g);
 
+	   	 // used for debugging
+	   	 if (Camera.SHOW_CAMERA)
+	   		 camera.draw(g);
+	   	 g.translate(+cameraX, +cameraY);
+	    }
 
+	/**
+	 * Submits the level to the world of a snapshot, which can be drawn by another thread
+	 * @param alpha How far the time has advanced from the last update to the next one (0 - 1)
+	 */
+	public void submit(FrameSnapshot frame, float alpha) {
+		int cameraX = (int) camera.getInterpolatedX(alpha);
+		int cameraY = (int) camera.getInterpolatedY(alpha);
+		frame.setCamera(cameraX, cameraY);
+		submit(frame.getWorld(), cameraX, cameraY, alpha);
+	}
 
-public void draw(Graphics g) {
-	   	 g.translate((int) -camera.getX(), (int) -camera.getY());
-	   	 // Draw the map
-	   	 for (int x = 0; x < map.getWidth(); x++) {
-	   		 for (int y = 0; y < map.getHeight(); y++) {
-	   			 Tile tile = map.getTiles()[x][y];
-	   			 if (tile == null)
-	   				 continue;
-	   			 if(tile instanceof Gas) {
-	   				
-	   				 int adjacencyCount =0;
-	   				 for(int i=-1; i<2; i++) {
-	   					 for(int j =-1; j<2; j++) {
-	   						 if(j!=0 || i!=0) {
-	   							 if((x+i)>=0 && (x+i)<map.getTiles().length && (y+j)>=0 && (y+j)<map.getTiles()[x].length) {
-	   								 if(map.getTiles()[x+i][y+j] instanceof Gas) {
-	   									 adjacencyCount++;
-	   								 }
-	   							 }
-	   						 }
-	   					 }
-	   				 }
-	   				 if(adjacencyCount == 8) {
-	   					 ((Gas)(tile)).setIntensity(2);
-	   					 tile.setImage(tileset.getImage("GasThree"));
-	   				 }
-	   				 else if(adjacencyCount >5) {
-	   					 ((Gas)(tile)).setIntensity(1);
-	   					tile.setImage(tileset.getImage("GasTwo"));
-	   				 }
-	   				 else {
-	   					 ((Gas)(tile)).setIntensity(0);
-	   					tile.setImage(tileset.getImage("GasOne"));
-	   				 }
-	   			 }
-	   			 if (camera.isVisibleOnCamera(tile.getX(), tile.getY(), tile.getSize(), tile.getSize()))
-	   				 tile.draw(g);
+	/**
+	 * Submits everything on the camera to a render queue, in world coordinates
+	 */
+	private void submit(RenderQueue queue, int cameraX, int cameraY, float alpha) {
+	   	 // Draw the map, only the columns and rows on the camera -> the cost doesn't depend on the size of the map
+	   	 int minCol = Math.max(0, Math.floorDiv(cameraX, tileSize));
+	   	 int minRow = Math.max(0, Math.floorDiv(cameraY, tileSize));
+	   	 int maxCol = Math.min(map.getWidth() - 1, Math.floorDiv(cameraX + camera.getWidth() - 1, tileSize));
+	   	 int maxRow = Math.min(map.getHeight() - 1, Math.floorDiv(cameraY + camera.getHeight() - 1, tileSize));
+	   	 tileCache.submit(queue, LAYER_TILES, minCol, minRow, maxCol, maxRow); // the static tiles, from pre-rendered chunks
+	   	 for (int x = minCol; x <= maxCol; x++) {
+	   		 for (int y = minRow; y <= maxRow; y++) {
+	   			 Tile tile = map.getTile(x, y); // the intensity of gas is kept up to date by Gas
+	   			 if (!tile.isStatic()) tile.submit(queue, LAYER_DYNAMIC_TILES, x, y);
 	   		 }
 	   	 }
 
 
-	   	 // Draw the enemies
-	   	 for (int i = 0; i < enemies.length; i++) {
-	   		 enemies[i].draw(g);
+	   	 // Draw the enemies, only the ones on the camera (with a margin of one tile for the interpolation)
+	   	 nearbyEnemies.clear();
+	   	 enemyHash.query(cameraX - tileSize, cameraY - tileSize, camera.getWidth() + 2 * tileSize, camera.getHeight() + 2 * tileSize, nearbyEnemies);
+	   	 nearbyEnemies.sort(); // -> same drawing order as the array
+	   	 for (int i = 0; i < nearbyEnemies.size(); i++) {
+	   		 enemies[nearbyEnemies.get(i)].submit(queue, alpha);
 	   	 }
 
 
 	   	 // Draw the player
-	   	 player.draw(g);
-
-
-
-
-	   	 // used for debugging
-	   	 if (Camera.SHOW_CAMERA)
-	   		 camera.draw(g);
-	   	 g.translate((int) +camera.getX(), (int) +camera.getY());
+	   	 player.submit(queue, alpha);
 	    }
 
 
@@ -381,6 +404,42 @@ public void draw(Graphics g) {
 		winListeners.add(listener);
 	}
 
+	/**
+	 * Enables updating the enemies in parallel, once there are at least threshold enemies
+	 * @param parallelEnemies false -> the enemies are always updated on the game thread
+	 * @param threshold The minimum number of enemies for the parallel update
+	 */
+	public void setParallelEnemies(boolean parallelEnemies, int threshold) {
+		this.parallelEnemies = parallelEnemies;
+		this.parallelEnemyThreshold = threshold;
+		enemyStore.setParallel(parallelEnemies, threshold);
+	}
+
+	/**
+	 * Sets the input the player is controlled with, also after restarting the level
+	 */
+	public void setPlayerInput(PlayerInput playerInput) {
+		this.playerInput = playerInput;
+		player.setInput(playerInput);
+	}
+
+	/**
+	 * Sets how fast the water and gas of the flowers spread
+	 * @param cellsPerTick The number of cells filled per tick, 0 -> the spread finishes in one tick
+	 * @param nanosPerTick The longest time spent spreading per tick, 0 -> no limit
+	 */
+	public void setSpreadBudget(int cellsPerTick, long nanosPerTick) {
+		spreadEngine.setBudget(cellsPerTick, nanosPerTick);
+	}
+
+	/**
+	 * 
+	 * @param concurrentDrawing true if the submitted snapshots are drawn by another thread (see submit())
+	 */
+	public void setConcurrentDrawing(boolean concurrentDrawing) {
+		tileCache.setConcurrentDrawing(concurrentDrawing);
+	}
+
 	// ---------------------------------------------------------Getters
 	public boolean isActive() {
 		return active;
@@ -401,4 +460,12 @@ public void draw(Graphics g) {
 	public Player getPlayer() {
 		return player;
 	}
+
+	public SpreadEngine getSpreadEngine() {
+		return spreadEngine;
+	}
+
+	public FluidSimulation getFluids() {
+		return fluids;
+	}
 }
\ No newline at end of file
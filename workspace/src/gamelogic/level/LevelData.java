@@ -1,17 +1,33 @@
 package gamelogic.level;
 
+import gameengine.ActivityRegions;
 import gameengine.loaders.Mapdata;
+import gamelogic.tiledMap.ChunkedTileGrid;
 
 public class LevelData {
 
 	private Mapdata mapdata;
 	private int playerX;
 	private int playerY;
+	private int activeMargin; //in tiles, see ActivityRegions
+	private int coarseMargin; //in tiles, see ActivityRegions
+	private int chunkBudget = ChunkedTileGrid.DEFAULT_BUDGET; //in bytes, only used if the map is chunked
 	
 	public LevelData(Mapdata mapdata, int playerX, int playerY) {
+		this(mapdata, playerX, playerY, ActivityRegions.DEFAULT_ACTIVE_MARGIN, ActivityRegions.DEFAULT_COARSE_MARGIN);
+	}
+	
+	/**
+	 * 
+	 * @param activeMargin Enemies this many tiles around the camera are fully simulated
+	 * @param coarseMargin Enemies this many tiles around the camera are coarsely simulated, the others sleep
+	 */
+	public LevelData(Mapdata mapdata, int playerX, int playerY, int activeMargin, int coarseMargin) {
 		this.mapdata = mapdata;
 		this.playerX = playerX;
 		this.playerY = playerY;
+		this.activeMargin = activeMargin;
+		this.coarseMargin = coarseMargin;
 	}
 	
 	//-----------------------------Getters
@@ -30,5 +46,25 @@ public class LevelData {
 	public int getTileSize(){
 		return mapdata.getTileSize();
 	}
+	
+	public int getActiveMargin() {
+		return activeMargin;
+	}
+	
+	public int getCoarseMargin() {
+		return coarseMargin;
+	}
+	
+	public int getChunkBudget() {
+		return chunkBudget;
+	}
+	
+	/**
+	 * 
+	 * @param chunkBudget The memory the loaded chunks of a chunked map may use in bytes
+	 */
+	public void setChunkBudget(int chunkBudget) {
+		this.chunkBudget = chunkBudget;
+	}
 
 }
@@ -0,0 +1,45 @@
+package gamelogic.level;
+
+import gameengine.EntityStore;
+import gamelogic.tiledMap.FluidSimulation;
+
+/**
+ * The state of a level at one moment, the level can be set back to it (see Level.restoreSnapshot())
+ */
+public class LevelSnapshot {
+
+	private int mapSnapshot; //see Map.createSnapshot()
+	private float playerX;
+	private float playerY;
+	private EntityStore enemies; //copy of the enemies
+	private FluidSimulation fluids; //copy of the water and gas
+
+	public LevelSnapshot(int mapSnapshot, float playerX, float playerY, EntityStore enemies, FluidSimulation fluids) {
+		this.mapSnapshot = mapSnapshot;
+		this.playerX = playerX;
+		this.playerY = playerY;
+		this.enemies = enemies;
+		this.fluids = fluids;
+	}
+
+	//-----------------------------Getters
+	public int getMapSnapshot() {
+		return mapSnapshot;
+	}
+
+	public float getPlayerX() {
+		return playerX;
+	}
+
+	public float getPlayerY() {
+		return playerY;
+	}
+
+	public EntityStore getEnemies() {
+		return enemies;
+	}
+
+	public FluidSimulation getFluids() {
+		return fluids;
+	}
+}
@@ -0,0 +1,288 @@
+package gamelogic.level;
+
+import gameengine.util.IntList;
+import gamelogic.tiledMap.Map;
+import gamelogic.tiles.Flag;
+import gamelogic.tiles.Gas;
+import gamelogic.tiles.TileRegistry;
+import gamelogic.tiles.Water;
+
+/**
+ * Spreads water and gas over the map, a limited number of cells per tick, so a big spread is animated
+ * over several frames instead of causing one long frame.
+ * The spreads are processed one after another in the order they were started, so the cells they fill
+ * are the same as if every spread ran to completion at once:
+ * water keeps the depth-first order of the original recursion (on an explicit stack, so it can't overflow)
+ * and gas the breadth-first order of the original queue.
+ * The map itself marks the visited cells, a spread never enters a cell which already holds its water or gas.
+ */
+public class SpreadEngine {
+
+	public static final int DEFAULT_CELLS_PER_TICK = 16;
+	public static final long DEFAULT_NANOS_PER_TICK = 1000000; //hard limit of the time spent per tick
+	private static final int TIME_CHECK_INTERVAL = 32; //steps between two reads of the clock while no cell is filled
+
+	//Kinds of spreads
+	private static final int WATER = 0;
+	private static final int GAS = 1;
+
+	//Stages of a frame of the water stack, they replace the return addresses of the recursion
+	private static final int PLACE = 0;
+	private static final int RIGHT = 1;
+	private static final int LEFT = 2;
+
+	private Map map;
+	private int gasOne; //the gas with intensity 0
+	private int fallingWater;
+	private int fullWater;
+	private int halfWater;
+	private int quarterWater;
+
+	private int cellsPerTick = DEFAULT_CELLS_PER_TICK;
+	private long nanosPerTick = DEFAULT_NANOS_PER_TICK;
+
+	private IntList pending = new IntList(); //kind, column, row and amount of every spread which hasn't started yet
+	private int pendingHead;
+	private boolean running; //the current spread has work left
+	private int kind;
+
+	private IntList waterStack = new IntList(); //column, row, fullness and stage of every frame
+	private IntList gasQueue = new IntList(); //cells whose neighbours are filled next
+	private int gasHead;
+	private int gasLeft; //number of cells the gas can still fill
+
+	/**
+	 *
+	 * @param tileRegistry Used to find the ids of water and gas by their behaviour and parameter
+	 */
+	public SpreadEngine(Map map, TileRegistry tileRegistry) {
+		this.map = map;
+		gasOne = tileRegistry.getGasId(0);
+		fallingWater = tileRegistry.getWaterId(0);
+		fullWater = tileRegistry.getWaterId(3);
+		halfWater = tileRegistry.getWaterId(2);
+		quarterWater = tileRegistry.getWaterId(1);
+	}
+
+	/**
+	 * Starts spreading water from a cell, the cell is filled in the next update
+	 * @param fullness 3 -> full, 2 -> half, 1 -> quarter, 0 -> falling
+	 */
+	public void addWater(int col, int row, int fullness) {
+		add(WATER, col, row, fullness);
+	}
+
+	/**
+	 * Starts spreading gas from a cell, the cell is filled in the next update
+	 * @param cells The number of cells the gas fills
+	 */
+	public void addGas(int col, int row, int cells) {
+		add(GAS, col, row, cells);
+	}
+
+	private void add(int kind, int col, int row, int amount) {
+		pending.add(kind);
+		pending.add(col);
+		pending.add(row);
+		pending.add(amount);
+	}
+
+	/**
+	 * Fills cells until the spreads are finished, the number of cells per tick is reached or the time is up.
+	 * The clock is read after every filled cell, steps which fill nothing are cheap and read it less often.
+	 */
+	public void update() {
+		long start = System.nanoTime();
+		int cells = 0;
+		int steps = 0;
+		while(cellsPerTick <= 0 || cells < cellsPerTick) {
+			if(!running && !startNext()) break;
+			int filled = kind == WATER ? stepWater() : stepGas();
+			cells += filled;
+
+			if(nanosPerTick > 0 && (filled > 0 || ++steps % TIME_CHECK_INTERVAL == 0) && System.nanoTime() - start > nanosPerTick) break;
+		}
+	}
+
+	/**
+	 * Removes all spreads, e.g. when the level is restarted
+	 */
+	public void clear() {
+		pending.clear();
+		pendingHead = 0;
+		running = false;
+		waterStack.clear();
+		gasQueue.clear();
+		gasHead = 0;
+	}
+
+	private boolean startNext() {
+		if(pendingHead == pending.size()) {
+			pending.clear();
+			pendingHead = 0;
+			return false;
+		}
+		kind = pending.get(pendingHead);
+		int col = pending.get(pendingHead + 1);
+		int row = pending.get(pendingHead + 2);
+		int amount = pending.get(pendingHead + 3);
+		pendingHead += 4;
+
+		if(kind == WATER) {
+			waterStack.clear();
+			push(col, row, amount);
+		} else {
+			gasQueue.clear();
+			gasHead = 0;
+			gasLeft = amount;
+			map.setId(col, row, gasOne);
+			gasQueue.add(map.getCell(col, row));
+			gasLeft--;
+		}
+		running = true;
+		return true;
+	}
+
+	//------------------------------------Water
+	private void push(int col, int row, int fullness) {
+		waterStack.add(col);
+		waterStack.add(row);
+		waterStack.add(fullness);
+		waterStack.add(PLACE);
+	}
+
+	private void pop() {
+		waterStack.truncate(waterStack.size() - 4);
+		if(waterStack.isEmpty()) running = false;
+	}
+
+	/**
+	 * Runs the top frame of the stack until its next call
+	 * @return The number of filled cells (0 or 1)
+	 */
+	private int stepWater() {
+		int top = waterStack.size() - 4;
+		int col = waterStack.get(top);
+		int row = waterStack.get(top + 1);
+		int fullness = waterStack.get(top + 2);
+		int stage = waterStack.get(top + 3);
+		int newFullness = (fullness > 1) ? fullness - 1 : fullness;
+
+		switch (stage) {
+		case PLACE:
+			map.setId(col, row, getWaterId(fullness));
+
+			// Try to move downward if possible
+			if (row + 1 < map.getHeight() && !map.getTile(col, row + 1).isSolid()) {
+				boolean nextIsWater = map.getTile(col, row + 1) instanceof Water;
+				boolean belowNextExists = (row + 2 < map.getHeight());
+				boolean belowNextIsSolid = (belowNextExists && map.getTile(col, row + 2).isSolid());
+				boolean atBottom = (row + 2 == map.getHeight());
+
+				pop(); // nothing is done after the downward call
+				if (!nextIsWater) {
+					if (belowNextExists && !belowNextIsSolid) {
+						push(col, row + 1, 0);
+					} else if (atBottom) {
+						push(col, row + 1, 0);
+					} else if (belowNextExists && belowNextIsSolid) {
+						push(col, row + 1, 3);
+					}
+				}
+				if (!waterStack.isEmpty()) running = true;
+			} else {
+				waterStack.set(top + 3, RIGHT);
+			}
+			return 1;
+		case RIGHT:
+			waterStack.set(top + 3, LEFT);
+			if (col + 1 <= map.getWidth() - 1 && !(map.getTile(col + 1, row) instanceof Water) && !map.getTile(col + 1, row).isSolid()) {
+				push(col + 1, row, newFullness);
+			}
+			return 0;
+		default: //LEFT
+			pop(); // nothing is done after the left call
+			if (col - 1 >= 0 && !(map.getTile(col - 1, row) instanceof Water) && !map.getTile(col - 1, row).isSolid()) {
+				push(col - 1, row, newFullness);
+				running = true;
+			}
+			return 0;
+		}
+	}
+
+	private int getWaterId(int fullness) {
+		switch (fullness) {
+		case 3:
+			return fullWater;
+		case 2:
+			return halfWater;
+		case 1:
+			return quarterWater;
+		default:
+			return fallingWater;
+		}
+	}
+
+	//------------------------------------Gas
+	/**
+	 * Fills the neighbours of the next cell of the queue
+	 * @return The number of filled cells
+	 */
+	private int stepGas() {
+		if(gasHead == gasQueue.size() || gasLeft <= 0) {
+			running = false;
+			return 0;
+		}
+		int cell = gasQueue.get(gasHead++);
+		int col = map.getCol(cell);
+		int row = map.getRow(cell);
+		int filled = 0;
+
+		// rows above, beside and below, columns in the order 0, 1, -1
+		for (int k = -1; k <= 1; k++) {
+			for (int n = 0; n < 3; n++) {
+				int i = n == 0 ? 0 : n == 1 ? 1 : -1;
+				int c = col + i;
+				int r = row + k;
+				if (c < 0 || c >= map.getWidth() || r < 0 || r >= map.getHeight() || gasLeft <= 0) continue;
+				if (map.getTile(c, r).isSolid() || map.getTile(c, r) instanceof Gas || map.getTile(c, r) instanceof Flag) continue;
+				map.setId(c, r, gasOne);
+				gasQueue.add(map.getCell(c, r));
+				gasLeft--;
+				filled++;
+			}
+		}
+		if(gasHead == gasQueue.size() || gasLeft <= 0) running = false;
+		return filled;
+	}
+
+	//------------------------------------Setters and Getters
+	/**
+	 *
+	 * @param cellsPerTick The number of cells filled per tick, 0 -> no limit
+	 * @param nanosPerTick The longest time spent per tick, 0 -> no limit
+	 */
+	public void setBudget(int cellsPerTick, long nanosPerTick) {
+		this.cellsPerTick = cellsPerTick;
+		this.nanosPerTick = nanosPerTick;
+	}
+
+	/**
+	 *
+	 * @return true if a spread is running or waiting
+	 */
+	public boolean isActive() {
+		return running || pendingHead < pending.size();
+	}
+
+	/**
+	 *
+	 * @return true if a spread waits to start at the cell
+	 */
+	public boolean isPending(int col, int row) {
+		for (int i = pendingHead; i < pending.size(); i += 4) {
+			if(pending.get(i + 1) == col && pending.get(i + 2) == row) return true;
+		}
+		return false;
+	}
+}
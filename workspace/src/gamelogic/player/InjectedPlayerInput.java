@@ -0,0 +1,42 @@
+package gamelogic.player;
+
+/**
+ * Input which is set by code instead of the keyboard, e.g. for replays or simulations without a window
+ */
+public class InjectedPlayerInput extends PlayerInput {
+
+	private boolean jump;
+	private boolean left;
+	private boolean right;
+	private boolean down;
+	
+	/**
+	 * Sets which keys are down until the next call
+	 */
+	public void setKeys(boolean jump, boolean left, boolean right, boolean down) {
+		this.jump = jump;
+		this.left = left;
+		this.right = right;
+		this.down = down;
+	}
+	
+	@Override
+	public boolean isJumpKeyDown() {
+		return jump;
+	}
+	
+	@Override
+	public boolean isLeftKeyDown() {
+		return left;
+	}
+	
+	@Override
+	public boolean isRightKeyDown() {
+		return right;
+	}
+	
+	@Override
+	public boolean isDownKeyDown() {
+		return down;
+	}
+}
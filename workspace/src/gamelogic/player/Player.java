@@ -1,20 +1,16 @@
 package gamelogic.player;
 
 import java.awt.Color;
-import java.awt.Graphics;
-import java.awt.Graphics2D;
 import java.awt.AlphaComposite;
-import java.awt.Composite;
 
 import gameengine.PhysicsObject;
-import gameengine.graphics.MyGraphics;
+import gameengine.graphics.RenderQueue;
 import gameengine.hitbox.RectHitbox;
 import gameengine.maths.Vector2D;
 import gamelogic.Main;
 import gamelogic.level.Level;
+import gamelogic.tiledMap.Map;
 import gamelogic.tiles.Tile;
-import gamelogic.tiles.Water;
-import gamelogic.tiles.Gas;
 
 public class Player extends PhysicsObject {
     public float walkSpeed = 400;
@@ -24,8 +20,15 @@ public class Player extends PhysicsObject {
     private boolean isFrozen = false;
     private Vector2D frozenPosition = new Vector2D();
     private boolean isInvincible = false;
+    private PlayerInput input = new PlayerInput();
     private static final Color NORMAL_COLOR = Color.YELLOW;
     private static final Color INVINCIBLE_COLOR = Color.GRAY;
+    //Composites for all used opacities, so no composite has to be created while drawing
+    private static final float GAS_OPACITY = 0.5f;
+    private static final float BLINK_OPACITY = 0.3f;
+    private static final AlphaComposite OPAQUE_COMPOSITE = AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 1.0f);
+    private static final AlphaComposite GAS_COMPOSITE = AlphaComposite.getInstance(AlphaComposite.SRC_OVER, GAS_OPACITY);
+    private static final AlphaComposite BLINK_COMPOSITE = AlphaComposite.getInstance(AlphaComposite.SRC_OVER, BLINK_OPACITY);
 
     public Player(float x, float y, Level level) {
         super(x, y, level.getLevelData().getTileSize(), level.getLevelData().getTileSize(), level);
@@ -36,7 +39,8 @@ public class Player extends PhysicsObject {
     //Player freeze when sheild
     @Override
     public void update(float tslf) {
-        if(PlayerInput.isDownKeyDown()) {
+        savePreviousPosition();
+        if(input.isDownKeyDown()) {
             if(!isFrozen) {
                 
                 frozenPosition.x = position.x;
@@ -56,61 +60,63 @@ public class Player extends PhysicsObject {
 
         float currentSpeed = walkSpeed;
         
-        if(isInContact(Water.class)) {
+        if(isInContact(Tile.WATER)) {
             currentSpeed *= 2f;
         }
         
         movementVector.x = 0;
-        if(PlayerInput.isLeftKeyDown()) {
+        if(input.isLeftKeyDown()) {
             movementVector.x = -currentSpeed;
         }
-        if(PlayerInput.isRightKeyDown()) {
+        if(input.isRightKeyDown()) {
             movementVector.x = +currentSpeed;
         }
-        if(PlayerInput.isJumpKeyDown() && !isJumping) {
+        if(input.isJumpKeyDown() && !isJumping) {
             movementVector.y = -jumpPower;
             isJumping = true;
         }
         
         if(!isInvincible) {  
-            opacity = isInContact(Gas.class) ? 0.5f : 1.0f;
+            opacity = isInContact(Tile.GAS) ? GAS_OPACITY : 1.0f;
         }
         
         super.update(tslf);
         
         isJumping = true;
-        if(collisionMatrix[BOT] != null) isJumping = false;
+        if(collisionMatrix[BOT] != Map.NO_CELL) isJumping = false;
     }
 
     @Override
-    public void draw(Graphics g) {
-        if(g instanceof Graphics2D) {
-            Graphics2D g2d = (Graphics2D)g;
-            Composite originalComposite = g2d.getComposite();
-            
-            if(isInvincible) {
-                opacity = (System.currentTimeMillis() / 100 % 2 == 0) ? 1.0f : 0.3f;
-            }
-            
-            g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, opacity));
-            
-            g.setColor(isInvincible ? INVINCIBLE_COLOR : NORMAL_COLOR);
-            MyGraphics.fillRectWithOutline(g, (int)getX(), (int)getY(), width, height);
-            
-            if(Main.DEBUGGING) {
-                for (int i = 0; i < closestMatrix.length; i++) {
-                    Tile t = closestMatrix[i];
-                    if(t != null) {
-                        g.setColor(Color.RED);
-                        g.drawRect((int)t.getX(), (int)t.getY(), t.getSize(), t.getSize());
-                    }
+    public void submit(RenderQueue queue, float alpha) {
+        if(isInvincible) {
+            opacity = (System.currentTimeMillis() / 100 % 2 == 0) ? 1.0f : BLINK_OPACITY;
+        }
+        AlphaComposite composite = getComposite(opacity);
+        
+        queue.fillRectWithOutline(Level.LAYER_PLAYER, isInvincible ? INVINCIBLE_COLOR : NORMAL_COLOR, (int)getInterpolatedX(alpha), (int)getInterpolatedY(alpha), width, height, composite);
+        
+        if(Main.DEBUGGING) {
+            Map map = getLevel().getMap();
+            for (int i = 0; i < closestMatrix.length; i++) {
+                int cell = closestMatrix[i];
+                if(cell != Map.NO_CELL) {
+                    queue.drawRect(Level.LAYER_PLAYER, Color.RED, map.getCol(cell) * map.getTileSize(), map.getRow(cell) * map.getTileSize(), map.getTileSize(), map.getTileSize(), composite);
                 }
             }
-            
-            hitbox.draw(g);
-            
-            g2d.setComposite(originalComposite);
         }
+        
+        hitbox.submit(queue, Level.LAYER_PLAYER, composite);
+    }
+
+    private static AlphaComposite getComposite(float opacity) {
+        if(opacity == 1.0f) return OPAQUE_COMPOSITE;
+        if(opacity == GAS_OPACITY) return GAS_COMPOSITE;
+        if(opacity == BLINK_OPACITY) return BLINK_COMPOSITE;
+        return AlphaComposite.getInstance(AlphaComposite.SRC_OVER, opacity);
+    }
+
+    public void setInput(PlayerInput input) {
+        this.input = input;
     }
 
     public boolean isInvincible() {
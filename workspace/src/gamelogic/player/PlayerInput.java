@@ -8,35 +8,36 @@ import java.awt.event.KeyEvent;
 import gameengine.input.KeyboardInputManager;
 
 /**
- * 
+ * The keys controlling the player, read from the keyboard.
+ * Sub-classes can inject the input from somewhere else (see InjectedPlayerInput)
  * @author Paul
  *
  */
-class PlayerInput {
+public class PlayerInput {
 	/**
 	 * 
 	 * @return true if the walk-up-key is down
 	 */
 	//I got annoyed so I made the up key also jump
-	 public static boolean isJumpKeyDown() {
+	 public boolean isJumpKeyDown() {
 		return KeyboardInputManager.isKeyDown(KeyEvent.VK_SPACE) || KeyboardInputManager.isKeyDown(KeyEvent.VK_W) || KeyboardInputManager.isKeyDown(KeyEvent.VK_UP);
 	}
 	/**
 	 * 
 	 * @return true if the walk-left-key is down
 	 */
-	public static boolean isLeftKeyDown() {
+	public boolean isLeftKeyDown() {
 		return KeyboardInputManager.isKeyDown(KeyEvent.VK_A) || KeyboardInputManager.isKeyDown(KeyEvent.VK_LEFT);
 	}
 	/**
 	 * 
 	 * @return true if the walk-right-key is down
 	 */
-	public static boolean isRightKeyDown() {
+	public boolean isRightKeyDown() {
 		return KeyboardInputManager.isKeyDown(KeyEvent.VK_D) || KeyboardInputManager.isKeyDown(KeyEvent.VK_RIGHT);
 	}
 	//Checks if my down key is down
-	public static boolean isDownKeyDown() {
+	public boolean isDownKeyDown() {
         return KeyboardInputManager.isKeyDown(KeyEvent.VK_S) || KeyboardInputManager.isKeyDown(KeyEvent.VK_DOWN);
     }
 }
@@ -0,0 +1,49 @@
+package gamelogic.tiledMap;
+
+/**
+ * All ids in one array, numbered column by column (see Map.getCell())
+ */
+public class ArrayTileGrid implements TileGrid {
+
+	private int width;
+	private int height;
+	private short[] ids;
+
+	public ArrayTileGrid(int width, int height, short[] ids) {
+		this.width = width;
+		this.height = height;
+		this.ids = ids;
+	}
+
+	@Override
+	public int getId(int col, int row) {
+		return ids[col * height + row];
+	}
+
+	@Override
+	public void setId(int col, int row, int id) {
+		ids[col * height + row] = (short) id;
+	}
+
+	@Override
+	public void addChange(int col, int row) {
+	}
+
+	@Override
+	public void removeChange(int col, int row) {
+	}
+
+	@Override
+	public boolean isLoaded(int col, int row) {
+		return true;
+	}
+
+	@Override
+	public void focus(int minCol, int minRow, int maxCol, int maxRow) {
+	}
+
+	@Override
+	public void setLoadListener(TileLoadListener listener) {
+		listener.onTilesLoaded(0, 0, width - 1, height - 1);
+	}
+}
@@ -0,0 +1,219 @@
+package gamelogic.tiledMap;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import gameengine.loaders.ChunkFile;
+import gameengine.util.IntList;
+
+/**
+ * Ids stored in square chunks of ChunkFile.CHUNK_SIZE tiles, which are read from a chunk file when they are needed.
+ * The chunks around the camera are loaded in focus(), a few chunks in the direction the camera moves are prefetched
+ * and the least recently used chunks are unloaded once more memory than the budget is used.
+ * Reading a cell of an unloaded chunk loads it immediately, so the physics never see missing tiles.
+ * Chunks with changes which the map can still restore are never unloaded, the chunk file only holds the state of the map file.
+ * Once all changes of a chunk were restored, it equals the chunk file again and can be unloaded.
+ */
+public class ChunkedTileGrid implements TileGrid {
+
+	public static final int DEFAULT_BUDGET = 4 * 1024 * 1024; //in bytes
+	public static final int FOCUS_MARGIN = 1; //in chunks around the camera
+	public static final int PREFETCH_DISTANCE = 2; //in chunks in front of the camera
+	public static final int MAX_PREFETCH_PER_TICK = 2;
+	private static final int SHIFT = ChunkFile.CHUNK_SHIFT;
+	private static final int MASK = ChunkFile.CHUNK_SIZE - 1;
+	private static final int CHUNK_BYTES = ChunkFile.CHUNK_SIZE * ChunkFile.CHUNK_SIZE * 2;
+
+	private ChunkFile file;
+	private int idCount; //ids outside of [0, idCount) are read as air
+	private int chunkCols;
+	private int chunkRows;
+	private int width;
+	private int height;
+	private int maxResident;
+	private TileLoadListener loadListener;
+
+	private AtomicReferenceArray<short[]> chunks; //null -> not loaded, can be loaded by the enemy threads
+	private int[] changes; //journaled changes of every chunk (see addChange()), > 0 -> never unloaded
+	private long[] lastUse; //tick the chunk was last in focus
+	private IntList resident = new IntList(); //indices of the loaded chunks
+	private long[] candidates = new long[0]; //used by evict()
+	private long tick;
+	private int loads; //number of chunks read from the file
+
+	//last focus, used for the direction of the prefetching
+	private int lastMinChunkCol = -1;
+	private int lastMinChunkRow = -1;
+
+	/**
+	 *
+	 * @param file The chunk file the ids are read from
+	 * @param idCount The number of tile types, other ids are read as air
+	 * @param budget The memory the loaded chunks may use in bytes (chunks in focus or changed chunks can exceed it)
+	 */
+	public ChunkedTileGrid(ChunkFile file, int idCount, int budget) {
+		this.file = file;
+		this.idCount = idCount;
+		this.chunkCols = file.getChunkCols();
+		this.chunkRows = file.getChunkRows();
+		this.width = file.getWidth();
+		this.height = file.getHeight();
+		this.maxResident = Math.max(1, budget / CHUNK_BYTES);
+		chunks = new AtomicReferenceArray<>(chunkCols * chunkRows);
+		changes = new int[chunkCols * chunkRows];
+		lastUse = new long[chunkCols * chunkRows];
+	}
+
+	@Override
+	public int getId(int col, int row) {
+		short[] chunk = chunks.get((row >> SHIFT) * chunkCols + (col >> SHIFT));
+		if(chunk == null) chunk = load((row >> SHIFT) * chunkCols + (col >> SHIFT));
+		return chunk[((col & MASK) << SHIFT) | (row & MASK)];
+	}
+
+	@Override
+	public void setId(int col, int row, int id) {
+		int index = (row >> SHIFT) * chunkCols + (col >> SHIFT);
+		short[] chunk = chunks.get(index);
+		if(chunk == null) chunk = load(index);
+		chunk[((col & MASK) << SHIFT) | (row & MASK)] = (short) id;
+	}
+
+	@Override
+	public void addChange(int col, int row) {
+		changes[(row >> SHIFT) * chunkCols + (col >> SHIFT)]++;
+	}
+
+	@Override
+	public void removeChange(int col, int row) {
+		changes[(row >> SHIFT) * chunkCols + (col >> SHIFT)]--;
+	}
+
+	@Override
+	public boolean isLoaded(int col, int row) {
+		return chunks.get((row >> SHIFT) * chunkCols + (col >> SHIFT)) != null;
+	}
+
+	@Override
+	public void focus(int minCol, int minRow, int maxCol, int maxRow) {
+		tick++;
+		int minChunkCol = Math.max(0, (minCol >> SHIFT) - FOCUS_MARGIN);
+		int minChunkRow = Math.max(0, (minRow >> SHIFT) - FOCUS_MARGIN);
+		int maxChunkCol = Math.min(chunkCols - 1, (maxCol >> SHIFT) + FOCUS_MARGIN);
+		int maxChunkRow = Math.min(chunkRows - 1, (maxRow >> SHIFT) + FOCUS_MARGIN);
+
+		for (int chunkRow = minChunkRow; chunkRow <= maxChunkRow; chunkRow++) {
+			for (int chunkCol = minChunkCol; chunkCol <= maxChunkCol; chunkCol++) {
+				int index = chunkRow * chunkCols + chunkCol;
+				if(chunks.get(index) == null) load(index);
+				lastUse[index] = tick;
+			}
+		}
+
+		//Prefetching in the direction the camera moved
+		if(lastMinChunkCol >= 0) {
+			int directionX = Integer.signum(minChunkCol - lastMinChunkCol);
+			int directionY = Integer.signum(minChunkRow - lastMinChunkRow);
+			if(directionX != 0 || directionY != 0) prefetch(minChunkCol, minChunkRow, maxChunkCol, maxChunkRow, directionX, directionY);
+		}
+		lastMinChunkCol = minChunkCol;
+		lastMinChunkRow = minChunkRow;
+
+		evict();
+	}
+
+	@Override
+	public synchronized void setLoadListener(TileLoadListener listener) {
+		this.loadListener = listener;
+		for (int i = 0; i < resident.size(); i++) {
+			throwTilesLoadedEvent(resident.get(i));
+		}
+	}
+
+	private void throwTilesLoadedEvent(int index) {
+		if(loadListener == null) return;
+		int minCol = (index % chunkCols) << SHIFT;
+		int minRow = (index / chunkCols) << SHIFT;
+		loadListener.onTilesLoaded(minCol, minRow, Math.min(width, minCol + ChunkFile.CHUNK_SIZE) - 1, Math.min(height, minRow + ChunkFile.CHUNK_SIZE) - 1);
+	}
+
+	private void prefetch(int minChunkCol, int minChunkRow, int maxChunkCol, int maxChunkRow, int directionX, int directionY) {
+		int loaded = 0;
+		for (int distance = 1; distance <= PREFETCH_DISTANCE; distance++) {
+			int fromCol = directionX > 0 ? maxChunkCol + distance : directionX < 0 ? minChunkCol - distance : minChunkCol;
+			int toCol = directionX > 0 ? maxChunkCol + distance : directionX < 0 ? minChunkCol - distance : maxChunkCol;
+			int fromRow = directionY > 0 ? maxChunkRow + distance : directionY < 0 ? minChunkRow - distance : minChunkRow;
+			int toRow = directionY > 0 ? maxChunkRow + distance : directionY < 0 ? minChunkRow - distance : maxChunkRow;
+			for (int chunkRow = Math.max(0, fromRow); chunkRow <= Math.min(chunkRows - 1, toRow); chunkRow++) {
+				for (int chunkCol = Math.max(0, fromCol); chunkCol <= Math.min(chunkCols - 1, toCol); chunkCol++) {
+					int index = chunkRow * chunkCols + chunkCol;
+					if(chunks.get(index) != null) continue;
+					if(loaded == MAX_PREFETCH_PER_TICK) return;
+					load(index);
+					lastUse[index] = tick;
+					loaded++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Unloads the least recently used chunks until the budget is met. Changed chunks and chunks in focus stay loaded.
+	 */
+	private synchronized void evict() {
+		int excess = resident.size() - maxResident;
+		if(excess <= 0) return;
+
+		//Sorting the unloadable chunks by their last use, the tick is in the upper bits
+		if(candidates.length < resident.size()) candidates = new long[resident.size() * 2];
+		int count = 0;
+		for (int i = 0; i < resident.size(); i++) {
+			int index = resident.get(i);
+			if(changes[index] > 0 || lastUse[index] == tick) continue;
+			candidates[count++] = (lastUse[index] << 32) | index;
+		}
+		Arrays.sort(candidates, 0, count);
+		for (int i = 0; i < Math.min(excess, count); i++) {
+			chunks.set((int) candidates[i], null);
+		}
+
+		//Removing the unloaded chunks from the resident ones
+		for (int i = resident.size() - 1; i >= 0; i--) {
+			if(chunks.get(resident.get(i)) == null) resident.removeSwap(i);
+		}
+	}
+
+	/**
+	 * Reads a chunk from the file, also called by the enemy threads
+	 */
+	private synchronized short[] load(int index) {
+		short[] chunk = chunks.get(index);
+		if(chunk != null) return chunk;
+		chunk = new short[ChunkFile.CHUNK_SIZE * ChunkFile.CHUNK_SIZE];
+		try {
+			file.readChunk(index, chunk);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		for (int i = 0; i < chunk.length; i++) {
+			if(chunk[i] < 0 || chunk[i] >= idCount) chunk[i] = 0;
+		}
+		lastUse[index] = tick;
+		resident.add(index);
+		loads++;
+		chunks.set(index, chunk);
+		throwTilesLoadedEvent(index);
+		return chunk;
+	}
+
+	//------------------------------------Getters
+	public int getResidentCount() {
+		return resident.size();
+	}
+
+	public int getLoadCount() {
+		return loads;
+	}
+}
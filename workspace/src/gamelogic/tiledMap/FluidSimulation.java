@@ -0,0 +1,603 @@
+package gamelogic.tiledMap;
+
+import java.util.stream.IntStream;
+
+import gameengine.util.IntList;
+import gamelogic.tiles.Gas;
+import gamelogic.tiles.Tile;
+import gamelogic.tiles.TileRegistry;
+import gamelogic.tiles.Water;
+
+/**
+ * Lets the water and gas placed while playing flow as a cellular automaton over the mass of every cell.
+ * Water falls, pools and is slightly compressed below other water, so connected pools level out.
+ * Gas spreads to its neighbours, rises and dissipates.
+ *
+ * The masses are stored in float arrays beside the map, row by row, only for a window around the fluid
+ * which grows when the fluid reaches its border. Every step is computed from the masses of the last step
+ * into a second set of arrays (double-buffered), so the rows can be updated in parallel bands without races:
+ * first the flows out of every cell, then the new masses as the sum of the flows in and out (mass is kept).
+ * Afterwards the map is changed only for the cells whose visual state changed (the fullness of the water
+ * or the intensity of the gas, see Water and Gas).
+ *
+ * Water and gas of the map file are part of the level design and stay where they are, the simulation handles
+ * them like solid tiles. Fluid placed with Map.setId() (e.g. by the flowers) is added to the simulation.
+ */
+public class FluidSimulation implements TileChangeListener {
+
+	//Water, the mass of a full cell is 1
+	public static final float MAX_MASS = 1.0f;
+	public static final float MAX_COMPRESSION = 0.02f; //additional mass of a full cell per cell of water above it
+	public static final float MIN_MASS = 0.005f; //less water is removed, so thin layers dry up
+	public static final float MIN_FLOW = 0.01f; //bigger flows are halved, which smooths the movement
+	public static final float MAX_SPEED = 1.0f; //maximum flow up or down per step
+
+	//Gas, the mass of a placed cell is 1
+	public static final float GAS_DIFFUSION = 0.2f; //part of the difference to every neighbour exchanged per step
+	public static final float GAS_RISE = 0.05f; //part of the gas moving up per step
+	public static final float GAS_DISSIPATION = 0.002f; //part of the gas lost per step
+	public static final float MIN_GAS = 0.001f; //less gas is removed
+
+	public static final float STEP_TIME = 1 / 60f; //in seconds
+	public static final int MAX_STEPS_PER_TICK = 4; //steps are skipped if a tick takes longer
+	public static final int DEFAULT_PARALLEL_THRESHOLD = 16384; //below this number of cells a step is computed on the calling thread
+	private static final int BAND_ROWS = 16; //rows per task of the parallel step
+	private static final int GROW_MARGIN = 16; //cells added around the fluid when the window grows
+
+	//Visual states, written to the map when they change
+	private static final byte NONE = 0;
+	private static final byte QUARTER_WATER = 1;
+	private static final byte HALF_WATER = 2;
+	private static final byte FULL_WATER = 3;
+	private static final byte FALLING_WATER = 4;
+	private static final byte GAS = 5; //followed by the intensities 1 and 2
+	private static final byte STALE = -1; //the cell was changed by someone else
+
+	private Map map;
+	private int air;
+	private int[] gasIds = new int[3]; //by the intensity
+	private int fallingWater;
+	private int fullWater;
+	private int halfWater;
+	private int quarterWater;
+
+	private boolean parallel = true;
+	private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+	private float time; //not yet simulated
+
+	//Window of the map covered by the arrays, index = (row - windowRow) * windowWidth + col - windowCol
+	private int windowCol;
+	private int windowRow;
+	private int windowWidth;
+	private int windowHeight;
+	private float[] water = new float[0];
+	private float[] gas = new float[0];
+	private float[] nextWater = new float[0];
+	private float[] nextGas = new float[0];
+	private float[] down = new float[0]; //flows of the water out of every cell
+	private float[] left = new float[0];
+	private float[] right = new float[0];
+	private float[] up = new float[0];
+	private byte[] open = new byte[0]; //1 -> the fluid can enter the cell
+	private byte[] visual = new byte[0]; //state of the cell in the map
+
+	//Bounds of the cells with mass in the window (minCol > maxCol -> no mass)
+	private int minCol;
+	private int minRow;
+	private int maxCol = -1;
+	private int maxRow = -1;
+
+	//Region updated by the last step, its masses are overwritten in the next step
+	private int lastMinRow;
+	private int lastMaxRow = -1;
+	private int lastMinCol;
+	private int lastMaxCol = -1;
+
+	//Results of the bands of one step, every band writes only its own entries
+	private int[] bandBounds = new int[0]; //minCol, minRow, maxCol and maxRow of every band
+	private IntList[] changes = new IntList[0]; //indices of the cells whose visual state changed
+
+	/**
+	 *
+	 * @param tileRegistry Used to find the ids of air, water and gas by their behaviour and parameter
+	 */
+	public FluidSimulation(Map map, TileRegistry tileRegistry) {
+		this.map = map;
+		air = tileRegistry.getAirId();
+		for (int intensity = 0; intensity < gasIds.length; intensity++) {
+			gasIds[intensity] = tileRegistry.getGasId(intensity);
+		}
+		fallingWater = tileRegistry.getWaterId(0);
+		fullWater = tileRegistry.getWaterId(3);
+		halfWater = tileRegistry.getWaterId(2);
+		quarterWater = tileRegistry.getWaterId(1);
+		map.addTileChangeListener(this);
+	}
+
+	/**
+	 * A copy of the state, not connected to the map
+	 */
+	private FluidSimulation(FluidSimulation other) {
+		map = other.map;
+		air = other.air;
+		gasIds = other.gasIds;
+		fallingWater = other.fallingWater;
+		fullWater = other.fullWater;
+		halfWater = other.halfWater;
+		quarterWater = other.quarterWater;
+		restore(other);
+	}
+
+	/**
+	 * Simulates the time since the last tick in steps of STEP_TIME and writes the changed cells to the map
+	 * @param tslf Time since last frame
+	 */
+	public void update(float tslf) {
+		if(minCol > maxCol) {
+			time = 0;
+			return;
+		}
+		time += tslf;
+		int steps = 0;
+		while(time >= STEP_TIME && steps < MAX_STEPS_PER_TICK) {
+			step();
+			time -= STEP_TIME;
+			steps++;
+		}
+		if(steps == MAX_STEPS_PER_TICK) time = 0;
+		if(steps > 0) sync();
+	}
+
+	/**
+	 * Computes one step of the water and the gas
+	 */
+	public void step() {
+		if(minCol > maxCol) return;
+		// the fluid moves at most one cell per step, the window has to contain its neighbours
+		if(minCol - windowCol < 2 && windowCol > 0 || minRow - windowRow < 2 && windowRow > 0
+				|| windowCol + windowWidth - 1 - maxCol < 2 && windowCol + windowWidth < map.getWidth()
+				|| windowRow + windowHeight - 1 - maxRow < 2 && windowRow + windowHeight < map.getHeight()) {
+			grow(minCol, minRow, maxCol, maxRow);
+		}
+
+		// the cells with mass and their neighbours, including the region of the last step so its masses are cleared
+		int fromCol = Math.max(windowCol, minCol - 1), toCol = Math.min(windowCol + windowWidth - 1, maxCol + 1);
+		int fromRow = Math.max(windowRow, minRow - 1), toRow = Math.min(windowRow + windowHeight - 1, maxRow + 1);
+		int regionFromCol = Math.min(fromCol, lastMinCol), regionToCol = Math.max(toCol, lastMaxCol);
+		int regionFromRow = Math.min(fromRow, lastMinRow), regionToRow = Math.max(toRow, lastMaxRow);
+		if(lastMinCol > lastMaxCol) {
+			regionFromCol = fromCol;
+			regionToCol = toCol;
+			regionFromRow = fromRow;
+			regionToRow = toRow;
+		}
+
+		int flowBands = (maxRow - minRow) / BAND_ROWS + 1;
+		int bands = (regionToRow - regionFromRow) / BAND_ROWS + 1;
+		boolean parallelStep = parallel && (regionToCol - regionFromCol + 1) * (regionToRow - regionFromRow + 1) >= parallelThreshold;
+		int flowFromCol = minCol, flowToCol = maxCol, flowFromRow = minRow, flowToRow = maxRow;
+		int fromC = regionFromCol, toC = regionToCol, fromR = regionFromRow, toR = regionToRow;
+
+		// Flows out of the cells with mass
+		if(parallelStep) {
+			IntStream.range(0, flowBands).parallel().forEach(band -> computeFlows(flowFromRow + band * BAND_ROWS, Math.min(flowToRow, flowFromRow + (band + 1) * BAND_ROWS - 1), flowFromCol, flowToCol));
+		} else {
+			computeFlows(flowFromRow, flowToRow, flowFromCol, flowToCol);
+		}
+
+		// New masses and visual states
+		if(parallelStep) {
+			IntStream.range(0, bands).parallel().forEach(band -> computeMasses(band, fromR + band * BAND_ROWS, Math.min(toR, fromR + (band + 1) * BAND_ROWS - 1), fromC, toC));
+		} else {
+			for (int band = 0; band < bands; band++) {
+				computeMasses(band, fromR + band * BAND_ROWS, Math.min(toR, fromR + (band + 1) * BAND_ROWS - 1), fromC, toC);
+			}
+		}
+		float[] swap = water;
+		water = nextWater;
+		nextWater = swap;
+		swap = gas;
+		gas = nextGas;
+		nextGas = swap;
+
+		// Bounds of the cells which still have mass
+		lastMinCol = fromCol;
+		lastMaxCol = toCol;
+		lastMinRow = fromRow;
+		lastMaxRow = toRow;
+		minCol = Integer.MAX_VALUE;
+		minRow = Integer.MAX_VALUE;
+		maxCol = -1;
+		maxRow = -1;
+		for (int band = 0; band < bands; band++) {
+			if(bandBounds[4 * band] > bandBounds[4 * band + 2]) continue;
+			minCol = Math.min(minCol, bandBounds[4 * band]);
+			minRow = Math.min(minRow, bandBounds[4 * band + 1]);
+			maxCol = Math.max(maxCol, bandBounds[4 * band + 2]);
+			maxRow = Math.max(maxRow, bandBounds[4 * band + 3]);
+		}
+	}
+
+	/**
+	 * Computes the flows of the water out of the cells of some rows, from the masses of the last step.
+	 * The flows of cells without water are never read.
+	 */
+	private void computeFlows(int fromRow, int toRow, int fromCol, int toCol) {
+		for (int row = fromRow; row <= toRow; row++) {
+			int r = row - windowRow;
+			for (int col = fromCol; col <= toCol; col++) {
+				int c = col - windowCol;
+				int i = r * windowWidth + c;
+				float mass = water[i];
+				if(mass <= 0) continue;
+				float remaining = mass;
+				float flow;
+
+				// Down, until the cell below is full (or compressed)
+				flow = 0;
+				if(r + 1 < windowHeight && open[i + windowWidth] != 0) {
+					flow = getStableMass(remaining + water[i + windowWidth]) - water[i + windowWidth];
+					if(flow > MIN_FLOW) flow *= 0.5f;
+					flow = Math.max(0, Math.min(flow, Math.min(MAX_SPEED, remaining)));
+					remaining -= flow;
+				}
+				down[i] = flow;
+
+				// Left and right, towards the same level
+				flow = 0;
+				if(remaining > 0 && c > 0 && open[i - 1] != 0) {
+					flow = (mass - water[i - 1]) / 4;
+					if(flow > MIN_FLOW) flow *= 0.5f;
+					flow = Math.max(0, Math.min(flow, remaining));
+					remaining -= flow;
+				}
+				left[i] = flow;
+				flow = 0;
+				if(remaining > 0 && c + 1 < windowWidth && open[i + 1] != 0) {
+					flow = (mass - water[i + 1]) / 4;
+					if(flow > MIN_FLOW) flow *= 0.5f;
+					flow = Math.max(0, Math.min(flow, remaining));
+					remaining -= flow;
+				}
+				right[i] = flow;
+
+				// Up, only compressed water
+				flow = 0;
+				if(remaining > 0 && r > 0 && open[i - windowWidth] != 0) {
+					flow = remaining - getStableMass(remaining + water[i - windowWidth]);
+					if(flow > MIN_FLOW) flow *= 0.5f;
+					flow = Math.max(0, Math.min(flow, Math.min(MAX_SPEED, remaining)));
+				}
+				up[i] = flow;
+			}
+		}
+	}
+
+	/**
+	 * Computes the masses of the cells of some rows after the step, the bounds of the cells with mass
+	 * and the cells whose visual state changed
+	 */
+	private void computeMasses(int band, int fromRow, int toRow, int fromCol, int toCol) {
+		IntList bandChanges = changes[band];
+		int bandMinCol = Integer.MAX_VALUE, bandMinRow = Integer.MAX_VALUE, bandMaxCol = -1, bandMaxRow = -1;
+		for (int row = fromRow; row <= toRow; row++) {
+			int r = row - windowRow;
+			for (int col = fromCol; col <= toCol; col++) {
+				int c = col - windowCol;
+				int i = r * windowWidth + c;
+				if(open[i] == 0) {
+					nextWater[i] = 0;
+					nextGas[i] = 0;
+					continue;
+				}
+				boolean hasAbove = r > 0, hasBelow = r + 1 < windowHeight, hasLeft = c > 0, hasRight = c + 1 < windowWidth;
+
+				// Water, flows out of this cell and into it from the neighbours
+				float mass = water[i];
+				if(mass > 0) mass -= down[i] + left[i] + right[i] + up[i];
+				if(hasAbove && water[i - windowWidth] > 0) mass += down[i - windowWidth];
+				if(hasBelow && water[i + windowWidth] > 0) mass += up[i + windowWidth];
+				if(hasLeft && water[i - 1] > 0) mass += right[i - 1];
+				if(hasRight && water[i + 1] > 0) mass += left[i + 1];
+				if(mass < MIN_MASS) mass = 0;
+				nextWater[i] = mass;
+
+				// Gas, exchanged with the open neighbours and rising
+				float g = gas[i];
+				float newGas = g;
+				if(hasAbove && open[i - windowWidth] != 0) newGas += GAS_DIFFUSION * (gas[i - windowWidth] - g) - GAS_RISE * g;
+				if(hasBelow && open[i + windowWidth] != 0) newGas += GAS_DIFFUSION * (gas[i + windowWidth] - g) + GAS_RISE * gas[i + windowWidth];
+				if(hasLeft && open[i - 1] != 0) newGas += GAS_DIFFUSION * (gas[i - 1] - g);
+				if(hasRight && open[i + 1] != 0) newGas += GAS_DIFFUSION * (gas[i + 1] - g);
+				newGas *= 1 - GAS_DISSIPATION;
+				if(newGas < MIN_GAS) newGas = 0;
+				nextGas[i] = newGas;
+
+				byte state = getVisual(mass, newGas, hasBelow && open[i + windowWidth] != 0 && water[i + windowWidth] < 0.75f);
+				if(state != visual[i]) {
+					visual[i] = state;
+					bandChanges.add(i);
+				}
+
+				if(mass > 0 || newGas > 0) {
+					bandMinCol = Math.min(bandMinCol, col);
+					bandMaxCol = Math.max(bandMaxCol, col);
+					bandMinRow = Math.min(bandMinRow, row);
+					bandMaxRow = row;
+				}
+			}
+		}
+		bandBounds[4 * band] = bandMinCol;
+		bandBounds[4 * band + 1] = bandMinRow;
+		bandBounds[4 * band + 2] = bandMaxCol;
+		bandBounds[4 * band + 3] = bandMaxRow;
+	}
+
+	/**
+	 * @param falling true if the cell below is open and was not full in the last step
+	 */
+	private static byte getVisual(float mass, float g, boolean falling) {
+		if(mass >= 0.05f) {
+			if(falling) return FALLING_WATER;
+			if(mass >= 0.75f) return FULL_WATER;
+			if(mass >= 0.375f) return HALF_WATER;
+			return QUARTER_WATER;
+		}
+		if(g >= 0.6f) return GAS + 2;
+		if(g >= 0.3f) return GAS + 1;
+		if(g >= 0.05f) return GAS;
+		return NONE;
+	}
+
+	/**
+	 * Writes the visual states which changed to the map, the types are not told (see Map.replaceId()).
+	 * The gas of the map file around a cell which gas entered or left is shaded here instead of by Gas.onPlaced().
+	 */
+	private void sync() {
+		for (int band = 0; band < changes.length; band++) {
+			IntList bandChanges = changes[band];
+			for (int j = 0; j < bandChanges.size(); j++) {
+				int i = bandChanges.get(j);
+				int col = windowCol + i % windowWidth;
+				int row = windowRow + i / windowWidth;
+				int id = getId(visual[i]);
+				boolean wasGas = map.getTile(col, row) instanceof Gas;
+				map.replaceId(col, row, id);
+				if(wasGas != map.getType(id) instanceof Gas) shadeStaticGas(col, row);
+			}
+			bandChanges.clear();
+		}
+	}
+
+	/**
+	 * Sets the intensity of the gas of the map file around a cell, the simulated gas gets its intensity from its mass
+	 */
+	private void shadeStaticGas(int col, int row) {
+		for (int c = Math.max(0, col - 1); c <= Math.min(map.getWidth() - 1, col + 1); c++) {
+			for (int r = Math.max(0, row - 1); r <= Math.min(map.getHeight() - 1, row + 1); r++) {
+				if(c == col && r == row || !(map.getTile(c, r) instanceof Gas)) continue;
+				boolean inWindow = c >= windowCol && c < windowCol + windowWidth && r >= windowRow && r < windowRow + windowHeight;
+				if(inWindow && open[(r - windowRow) * windowWidth + c - windowCol] != 0) continue;
+				Gas.shade(map, c, r);
+			}
+		}
+	}
+
+	private int getId(byte state) {
+		switch (state) {
+		case QUARTER_WATER:
+			return quarterWater;
+		case HALF_WATER:
+			return halfWater;
+		case FULL_WATER:
+			return fullWater;
+		case FALLING_WATER:
+			return fallingWater;
+		case NONE:
+			return air;
+		default:
+			return gasIds[state - GAS];
+		}
+	}
+
+	private static float getStableMass(float totalMass) {
+		if(totalMass <= MAX_MASS) {
+			return MAX_MASS;
+		} else if(totalMass < 2 * MAX_MASS + MAX_COMPRESSION) {
+			return (MAX_MASS * MAX_MASS + totalMass * MAX_COMPRESSION) / (MAX_MASS + MAX_COMPRESSION);
+		} else {
+			return (totalMass + MAX_COMPRESSION) / 2;
+		}
+	}
+
+	/**
+	 * Adds the water and gas placed by others to the simulation, the cells are written by the next step
+	 */
+	@Override
+	public void onTileChanged(int col, int row, int oldId, int id) {
+		Tile tile = map.getType(id);
+		Tile oldTile = map.getType(oldId);
+		boolean inWindow = col >= windowCol && col < windowCol + windowWidth && row >= windowRow && row < windowRow + windowHeight;
+		if(tile instanceof Water || tile instanceof Gas && !(oldTile instanceof Gas)) {
+			if(!inWindow) grow(col, row, col, row);
+			int i = (row - windowRow) * windowWidth + col - windowCol;
+			open[i] = 1;
+			if(tile instanceof Water) {
+				water[i] = Math.max(water[i], ((Water) tile).getFullness() == 0 ? 0.25f : ((Water) tile).getFullness() / 3f);
+			} else {
+				gas[i] = Math.max(gas[i], MAX_MASS);
+			}
+			visual[i] = STALE;
+			if(minCol > maxCol) {
+				minCol = maxCol = col;
+				minRow = maxRow = row;
+			} else {
+				minCol = Math.min(minCol, col);
+				minRow = Math.min(minRow, row);
+				maxCol = Math.max(maxCol, col);
+				maxRow = Math.max(maxRow, row);
+			}
+		} else if(inWindow) {
+			int i = (row - windowRow) * windowWidth + col - windowCol;
+			if(tile instanceof Gas) {
+				// the intensity was changed by Gas.shade(), the simulation decides it for its own gas
+				if(open[i] != 0) visual[i] = STALE;
+				return;
+			}
+			open[i] = (byte) (id == air ? 1 : 0);
+			water[i] = 0;
+			gas[i] = 0;
+			visual[i] = NONE;
+		}
+	}
+
+	/**
+	 * Enlarges the window so it contains a region and GROW_MARGIN cells around it
+	 */
+	private void grow(int fromCol, int fromRow, int toCol, int toRow) {
+		int newCol = Math.max(0, fromCol - GROW_MARGIN);
+		int newRow = Math.max(0, fromRow - GROW_MARGIN);
+		int newMaxCol = Math.min(map.getWidth() - 1, toCol + GROW_MARGIN);
+		int newMaxRow = Math.min(map.getHeight() - 1, toRow + GROW_MARGIN);
+		if(windowWidth > 0) {
+			newCol = Math.min(newCol, windowCol);
+			newRow = Math.min(newRow, windowRow);
+			newMaxCol = Math.max(newMaxCol, windowCol + windowWidth - 1);
+			newMaxRow = Math.max(newMaxRow, windowRow + windowHeight - 1);
+		}
+		int newWidth = newMaxCol - newCol + 1;
+		int newHeight = newMaxRow - newRow + 1;
+		int size = newWidth * newHeight;
+
+		float[] newWater = new float[size];
+		float[] newGas = new float[size];
+		byte[] newOpen = new byte[size];
+		byte[] newVisual = new byte[size];
+		for (int row = newRow; row <= newMaxRow; row++) {
+			for (int col = newCol; col <= newMaxCol; col++) {
+				int i = (row - newRow) * newWidth + col - newCol;
+				if(col >= windowCol && col < windowCol + windowWidth && row >= windowRow && row < windowRow + windowHeight) {
+					int old = (row - windowRow) * windowWidth + col - windowCol;
+					newWater[i] = water[old];
+					newGas[i] = gas[old];
+					newOpen[i] = open[old];
+					newVisual[i] = visual[old];
+				} else {
+					newOpen[i] = (byte) (map.getId(col, row) == air ? 1 : 0);
+				}
+			}
+		}
+		// the changes of the last step are written before the window grows
+		sync();
+
+		windowCol = newCol;
+		windowRow = newRow;
+		windowWidth = newWidth;
+		windowHeight = newHeight;
+		water = newWater;
+		gas = newGas;
+		open = newOpen;
+		visual = newVisual;
+		nextWater = new float[size];
+		nextGas = new float[size];
+		down = new float[size];
+		left = new float[size];
+		right = new float[size];
+		up = new float[size];
+		allocateBands();
+	}
+
+	private void allocateBands() {
+		int bands = windowHeight / BAND_ROWS + 1;
+		bandBounds = new int[4 * bands];
+		changes = new IntList[bands];
+		for (int band = 0; band < bands; band++) {
+			changes[band] = new IntList();
+		}
+	}
+
+	/**
+	 *
+	 * @return A copy of the masses, the simulation can be set back to it (see restore())
+	 */
+	public FluidSimulation copy() {
+		return new FluidSimulation(this);
+	}
+
+	/**
+	 * Sets the masses back to a copy, the map has to be set back to the same moment
+	 * @param snapshot A copy of this simulation (see copy())
+	 */
+	public void restore(FluidSimulation snapshot) {
+		time = snapshot.time;
+		windowCol = snapshot.windowCol;
+		windowRow = snapshot.windowRow;
+		windowWidth = snapshot.windowWidth;
+		windowHeight = snapshot.windowHeight;
+		water = snapshot.water.clone();
+		gas = snapshot.gas.clone();
+		open = snapshot.open.clone();
+		visual = snapshot.visual.clone();
+		int size = water.length;
+		nextWater = new float[size];
+		nextGas = new float[size];
+		down = new float[size];
+		left = new float[size];
+		right = new float[size];
+		up = new float[size];
+		minCol = snapshot.minCol;
+		minRow = snapshot.minRow;
+		maxCol = snapshot.maxCol;
+		maxRow = snapshot.maxRow;
+		lastMinCol = 0;
+		lastMaxCol = -1;
+		lastMinRow = 0;
+		lastMaxRow = -1;
+		allocateBands();
+	}
+
+	//------------------------------------Setters and Getters
+	/**
+	 * Enables computing the steps in parallel, once the fluid covers at least threshold cells
+	 * @param parallel false -> the steps are always computed on the calling thread
+	 * @param threshold The minimum number of cells for the parallel step
+	 */
+	public void setParallel(boolean parallel, int threshold) {
+		this.parallel = parallel;
+		this.parallelThreshold = threshold;
+	}
+
+	/**
+	 *
+	 * @return The mass of the water in a cell, 0 outside of the simulated window
+	 */
+	public float getWater(int col, int row) {
+		if(col < windowCol || col >= windowCol + windowWidth || row < windowRow || row >= windowRow + windowHeight) return 0;
+		return water[(row - windowRow) * windowWidth + col - windowCol];
+	}
+
+	/**
+	 *
+	 * @return The mass of the gas in a cell, 0 outside of the simulated window
+	 */
+	public float getGas(int col, int row) {
+		if(col < windowCol || col >= windowCol + windowWidth || row < windowRow || row >= windowRow + windowHeight) return 0;
+		return gas[(row - windowRow) * windowWidth + col - windowCol];
+	}
+
+	/**
+	 *
+	 * @return The number of cells covered by the arrays
+	 */
+	public int getWindowSize() {
+		return windowWidth * windowHeight;
+	}
+
+	/**
+	 *
+	 * @return true if there is water or gas to simulate
+	 */
+	public boolean isActive() {
+		return minCol <= maxCol;
+	}
+}
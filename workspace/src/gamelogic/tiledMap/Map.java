@@ -1,37 +1,265 @@
 package gamelogic.tiledMap;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import gameengine.loaders.ChunkFile;
+import gameengine.util.IntList;
 import gamelogic.tiles.Tile;
 
-public class Map {
+/**
+ * The tiles of a level as a grid of tile ids. The behaviour of every id is stored once in a shared tile type,
+ * so a cell costs two bytes instead of a full object.
+ * Cells are numbered column by column: cell = col * height + row
+ * The ids are kept in a TileGrid, either all in memory or streamed in chunks around the camera.
+ * Only the cells of dynamic tile types (see Tile.isDynamic()) are updated, they are registered when they are placed or loaded.
+ * Snapshots of the ids are copy-on-write: the first change of a cell after a snapshot saves its old id in a journal.
+ * Changed cells and chunks are collected until flushChanges(), so caches can be updated for the changes of a tick
+ * instead of scanning the map.
+ */
+public class Map implements TileLoadListener {
+	
+	public static final int NO_CELL = -1;
+	public static final int DEFAULT_CHUNK_SHIFT = ChunkFile.CHUNK_SHIFT; //size of the dirty chunks, the same as the chunks of ChunkedTileGrid
 	
 	private int width; //size in number of tiles;
 	private int height; //size in number of tiles;
 	private int fullWidth; //size in pixels
 	private int fullHeight; //size in pixels
-	private Tile[][] tiles;
+	private TileGrid ids;
+	private Tile[] types; //indexed by the id
 	private int tileSize;
 	
-	public Map(int width, int height, int tileSize, Tile[][]tiles) {
+	private IntList dynamicCells = new IntList(); //cells which were dynamic when they were registered
+	private BitSet registered = new BitSet(); //the cells in dynamicCells
+	
+	//Journal of the old ids, one entry for every cell changed after the last snapshot
+	private IntList journalCells = new IntList();
+	private IntList journalIds = new IntList();
+	private BitSet changed = new BitSet(); //cells changed since the last snapshot
+	
+	private List<TileChangeListener> changeListeners = new ArrayList<>();
+	
+	//Cells and chunks changed since the last flushChanges(), in the order of their first change
+	private IntList dirtyCells = new IntList();
+	private BitSet dirty = new BitSet();
+	private IntList dirtyChunks = new IntList(); //index = chunkRow * chunkCols + chunkCol
+	private BitSet dirtyChunkSet = new BitSet();
+	private int chunkShift = DEFAULT_CHUNK_SHIFT;
+	private int chunkCols;
+	private List<MapChangeListener> mapChangeListeners = new ArrayList<>();
+	
+	/**
+	 * 
+	 * @param types The tile types, indexed by their id
+	 * @param ids The id of every cell (see getCell())
+	 */
+	public Map(int width, int height, int tileSize, Tile[] types, short[] ids) {
+		this(width, height, tileSize, types, new ArrayTileGrid(width, height, ids));
+	}
+	
+	/**
+	 * 
+	 * @param types The tile types, indexed by their id
+	 * @param ids The storage of the ids
+	 */
+	public Map(int width, int height, int tileSize, Tile[] types, TileGrid ids) {
 		this.width = width;
 		this.height = height;
-		this.tiles = tiles.clone();
+		this.types = types;
+		this.ids = ids;
 		this.tileSize = tileSize;
 		this.fullWidth = width * tileSize;
 		this.fullHeight = height * tileSize;
+		this.chunkCols = (width + (1 << chunkShift) - 1) >> chunkShift;
+		ids.setLoadListener(this);
 	}
 	
+	/**
+	 * Updates the cells of the dynamic tile types, the cost depends on their number instead of the size of the map
+	 */
 	public void update(float tslf) {
-		for (int i = 0; i < width; i++) {
-			for (int j = 0; j < height; j++) {
-				Tile tile = tiles[i][j];
-				if(tile == null) continue;
-				tile.update(tslf);
+		for (int i = 0; i < dynamicCells.size(); i++) {
+			int cell = dynamicCells.get(i);
+			int col = cell / height;
+			int row = cell % height;
+			if(!ids.isLoaded(col, row)) continue; // registered again when it is loaded
+			Tile tile = types[ids.getId(col, row)];
+			if(!tile.isDynamic()) {
+				// replaced since it was registered
+				registered.clear(cell);
+				dynamicCells.removeSwap(i);
+				i--;
+				continue;
+			}
+			tile.update(this, col, row, tslf);
+		}
+	}
+	
+	/**
+	 * Changes the id of a cell, the old and the new type are told about the change (see Tile.onPlaced())
+	 */
+	public void setId(int col, int row, int id) {
+		int oldId = write(col, row, id);
+		if(oldId != id) {
+			types[oldId].onRemoved(this, col, row, types[id]);
+			types[id].onPlaced(this, col, row, types[oldId]);
+			for (int i = 0; i < changeListeners.size(); i++) {
+				changeListeners.get(i).onTileChanged(col, row, oldId, id);
+			}
+		}
+	}
+	
+	/**
+	 * Changes the id of a cell like setId(), but neither the types nor the listeners are told about the change.
+	 * Used by simulations which keep the cells around the changed one consistent themselves (see FluidSimulation).
+	 */
+	public void replaceId(int col, int row, int id) {
+		write(col, row, id);
+	}
+	
+	/**
+	 * Writes an id, the old id is journaled if this is the first change of the cell since the last snapshot
+	 * @return The old id
+	 */
+	private int write(int col, int row, int id) {
+		int cell = col * height + row;
+		int oldId = ids.getId(col, row);
+		if(!changed.get(cell)) {
+			changed.set(cell);
+			journalCells.add(cell);
+			journalIds.add(oldId);
+			ids.addChange(col, row);
+		}
+		ids.setId(col, row, id);
+		if(types[id].isDynamic()) register(cell);
+		if(oldId != id) markDirty(cell, col, row);
+		return oldId;
+	}
+	
+	/**
+	 * Marks the current ids, nothing is copied until cells are changed
+	 * @return The snapshot, only valid until an older snapshot is restored
+	 */
+	public int createSnapshot() {
+		changed.clear();
+		return journalCells.size();
+	}
+	
+	/**
+	 * Sets all cells changed since the snapshot back to their ids at the time of the snapshot.
+	 * The cost depends on the number of changed cells, not on the size of the map.
+	 * The types are not told about the changes, the restored ids are consistent with each other.
+	 * @param snapshot A snapshot of this map (see createSnapshot())
+	 */
+	public void restoreSnapshot(int snapshot) {
+		for (int i = journalCells.size() - 1; i >= snapshot; i--) {
+			int cell = journalCells.get(i);
+			int id = journalIds.get(i);
+			ids.setId(cell / height, cell % height, id);
+			ids.removeChange(cell / height, cell % height);
+			if(types[id].isDynamic()) register(cell);
+			markDirty(cell, cell / height, cell % height);
+		}
+		journalCells.truncate(snapshot);
+		journalIds.truncate(snapshot);
+		changed.clear();
+	}
+	
+	private void markDirty(int cell, int col, int row) {
+		if(dirty.get(cell)) return;
+		dirty.set(cell);
+		dirtyCells.add(cell);
+		markDirtyChunk(col, row);
+	}
+	
+	private void markDirtyChunk(int col, int row) {
+		int chunk = (row >> chunkShift) * chunkCols + (col >> chunkShift);
+		if(dirtyChunkSet.get(chunk)) return;
+		dirtyChunkSet.set(chunk);
+		dirtyChunks.add(chunk);
+	}
+	
+	/**
+	 * Tells the map change listeners about the cells changed since the last call and starts collecting again.
+	 * Called once per tick by the level, the cost depends on the number of changed cells.
+	 */
+	public void flushChanges() {
+		if(dirtyCells.isEmpty()) return;
+		for (int i = 0; i < mapChangeListeners.size(); i++) {
+			mapChangeListeners.get(i).onMapChanged(this);
+		}
+		for (int i = 0; i < dirtyCells.size(); i++) {
+			dirty.clear(dirtyCells.get(i));
+		}
+		for (int i = 0; i < dirtyChunks.size(); i++) {
+			dirtyChunkSet.clear(dirtyChunks.get(i));
+		}
+		dirtyCells.clear();
+		dirtyChunks.clear();
+	}
+	
+	/**
+	 * Registers the dynamic cells of a part of the map which was loaded
+	 */
+	@Override
+	public void onTilesLoaded(int minCol, int minRow, int maxCol, int maxRow) {
+		for (int col = minCol; col <= maxCol; col++) {
+			for (int row = minRow; row <= maxRow; row++) {
+				if(types[ids.getId(col, row)].isDynamic()) register(col * height + row);
 			}
 		}
 	}
 	
-	public void addTile(int col, int row, Tile t) {
-		tiles[col][row]=t;
+	/**
+	 * Chunks can be loaded by the threads of the enemies
+	 */
+	private synchronized void register(int cell) {
+		if(registered.get(cell)) return;
+		registered.set(cell);
+		dynamicCells.add(cell);
+	}
+	
+	/**
+	 * The listener is told about every change of an id by setId(), after the types were told
+	 */
+	public void addTileChangeListener(TileChangeListener listener) {
+		changeListeners.add(listener);
+	}
+	
+	/**
+	 * The listener is told about the changes of a tick at once, including the ones of replaceId() and restoreSnapshot()
+	 */
+	public void addMapChangeListener(MapChangeListener listener) {
+		mapChangeListeners.add(listener);
+	}
+	
+	/**
+	 * Sets the size of the dirty chunks to the chunks of the listener which reads them (see getDirtyChunks()),
+	 * the chunks of the changes which weren't flushed yet are collected again
+	 * @param chunkShift A chunk has 1 << chunkShift columns and rows
+	 */
+	public void setChunkShift(int chunkShift) {
+		this.chunkShift = chunkShift;
+		this.chunkCols = (width + (1 << chunkShift) - 1) >> chunkShift;
+		dirtyChunkSet.clear();
+		dirtyChunks.clear();
+		for (int i = 0; i < dirtyCells.size(); i++) {
+			markDirtyChunk(getCol(dirtyCells.get(i)), getRow(dirtyCells.get(i)));
+		}
+	}
+	
+	/**
+	 * Tells the grid which part of the map is shown (in pixels), so the cells around it are loaded
+	 */
+	public void focus(float x, float y, float width, float height) {
+		int minCol = Math.max(0, (int) Math.floor(x / tileSize));
+		int minRow = Math.max(0, (int) Math.floor(y / tileSize));
+		int maxCol = Math.min(this.width - 1, (int) Math.floor((x + width) / tileSize));
+		int maxRow = Math.min(this.height - 1, (int) Math.floor((y + height) / tileSize));
+		if(minCol > maxCol || minRow > maxRow) return;
+		ids.focus(minCol, minRow, maxCol, maxRow);
 	}
 	
 	//-----------------------------------------------------Getters
@@ -55,7 +283,108 @@ public class Map {
 		return fullHeight;
 	}
 	
-	public Tile[][] getTiles() {
-		return tiles;
+	public int getId(int col, int row) {
+		return ids.getId(col, row);
+	}
+	
+	/**
+	 * 
+	 * @return false if reading the cell would load it first (only used for drawing, the physics read every cell)
+	 */
+	public boolean isLoaded(int col, int row) {
+		return ids.isLoaded(col, row);
+	}
+	
+	public TileGrid getGrid() {
+		return ids;
+	}
+	
+	/**
+	 * 
+	 * @return The number of registered cells, including the ones which were replaced since the last update
+	 */
+	public int getDynamicCellCount() {
+		return dynamicCells.size();
+	}
+	
+	/**
+	 * 
+	 * @return The cells changed since the last flushChanges() (see getCell()), must not be changed
+	 */
+	public IntList getDirtyCells() {
+		return dirtyCells;
+	}
+	
+	/**
+	 * 
+	 * @return The chunks with cells changed since the last flushChanges() (chunkRow * getChunkCols() + chunkCol), must not be changed
+	 */
+	public IntList getDirtyChunks() {
+		return dirtyChunks;
+	}
+	
+	public boolean isDirty(int col, int row) {
+		return dirty.get(col * height + row);
+	}
+	
+	/**
+	 * 
+	 * @return A dirty chunk has 1 << getChunkShift() columns and rows
+	 */
+	public int getChunkShift() {
+		return chunkShift;
+	}
+	
+	/**
+	 * 
+	 * @return The number of dirty chunks in a row of chunks
+	 */
+	public int getChunkCols() {
+		return chunkCols;
+	}
+	
+	/**
+	 * 
+	 * @return The type of the tile in the cell
+	 */
+	public Tile getTile(int col, int row) {
+		return types[ids.getId(col, row)];
+	}
+	
+	public Tile getTile(int cell) {
+		return types[ids.getId(cell / height, cell % height)];
+	}
+	
+	public Tile getType(int id) {
+		return types[id];
+	}
+	
+	public int getCell(int col, int row) {
+		return col * height + row;
+	}
+	
+	public int getCol(int cell) {
+		return cell / height;
+	}
+	
+	public int getRow(int cell) {
+		return cell % height;
+	}
+	
+	//Hitbox of a cell
+	public float getHitboxX(int cell) {
+		return getTile(cell).getHitboxX(cell / height);
+	}
+	
+	public float getHitboxY(int cell) {
+		return getTile(cell).getHitboxY(cell % height);
+	}
+	
+	public int getHitboxWidth(int cell) {
+		return getTile(cell).getHitboxWidth();
+	}
+	
+	public int getHitboxHeight(int cell) {
+		return getTile(cell).getHitboxHeight();
 	}
 }
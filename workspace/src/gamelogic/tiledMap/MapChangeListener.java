@@ -0,0 +1,9 @@
+package gamelogic.tiledMap;
+
+public interface MapChangeListener {
+	/**
+	 * Called once per tick if cells were changed, the changed cells and chunks are read from the map
+	 * (see Map.getDirtyCells() and Map.getDirtyChunks()), a listener reading the chunks sets their size (see Map.setChunkShift())
+	 */
+	public void onMapChanged(Map map);
+}
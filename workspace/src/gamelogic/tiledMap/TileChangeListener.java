@@ -0,0 +1,5 @@
+package gamelogic.tiledMap;
+
+public interface TileChangeListener {
+	public void onTileChanged(int col, int row, int oldId, int id);
+}
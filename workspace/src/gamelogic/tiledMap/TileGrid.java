@@ -0,0 +1,38 @@
+package gamelogic.tiledMap;
+
+/**
+ * Storage of the tile ids of a Map
+ */
+public interface TileGrid {
+
+	public int getId(int col, int row);
+
+	public void setId(int col, int row, int id);
+
+	/**
+	 * Called when the map journaled a change of the cell (see Map.createSnapshot()),
+	 * the cell can differ from its loaded id until the change is restored
+	 */
+	public void addChange(int col, int row);
+
+	/**
+	 * Called when the map restored a journaled change of the cell (see Map.restoreSnapshot())
+	 */
+	public void removeChange(int col, int row);
+
+	/**
+	 * 
+	 * @return false if the cell has to be loaded before it can be read
+	 */
+	public boolean isLoaded(int col, int row);
+
+	/**
+	 * Called once per tick with the cells shown by the camera, so the grid can load and unload its cells
+	 */
+	public void focus(int minCol, int minRow, int maxCol, int maxRow);
+
+	/**
+	 * The listener is told about all cells which are loaded at the moment and about every cell loaded later
+	 */
+	public void setLoadListener(TileLoadListener listener);
+}
@@ -0,0 +1,194 @@
+package gamelogic.tiledMap;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import gameengine.graphics.RenderQueue;
+import gameengine.util.IntList;
+import gamelogic.tiles.Tile;
+
+/**
+ * Pre-rendered images of the static tiles (see Tile.isStatic()), one image for every square chunk of CHUNK_SIZE tiles.
+ * A frame only draws the images of the chunks on the camera instead of every tile.
+ * A chunk is rendered again when one of its static cells changed (see Map.flushChanges()),
+ * changes between tiles which are drawn every frame (e.g. water and gas) keep the image.
+ * The chunks are the dirty chunks of the map (see Map.setChunkShift()). They are smaller than the chunks of
+ * ChunkedTileGrid, so a change renders fewer tiles again and an image doesn't need more memory than the screen.
+ * Once the images use more memory than the budget, the least recently drawn chunks which are not on the camera are removed.
+ * If the images are drawn by another thread (see setConcurrentDrawing()), a submitted image is never changed or reused,
+ * a chunk which is rendered again gets a new image.
+ */
+public class TileLayerCache implements MapChangeListener {
+
+	public static final int CHUNK_SHIFT = 3;
+	public static final int CHUNK_SIZE = 1 << CHUNK_SHIFT; //in tiles
+	public static final long DEFAULT_BUDGET = 32L * 1024 * 1024; //in bytes
+	private static final int MAX_SPARE_IMAGES = 8; //removed images kept for new chunks
+
+	private Map map;
+	private int tileSize;
+	private int chunkPixels; //size of an image
+	private int chunkCols;
+	private int chunkRows;
+	private int maxResident;
+
+	private BufferedImage[] images; //null -> not rendered
+	private boolean[] stale; //a static cell of the chunk changed since it was rendered
+	private long[] lastUse; //frame the chunk was last drawn
+	private IntList resident = new IntList(); //indices of the rendered chunks
+	private List<BufferedImage> spare = new ArrayList<>();
+	private BitSet drawn = new BitSet(); //cells drawn into an image
+	private long[] candidates = new long[0]; //used by evict()
+	private long frame;
+	private int renders; //number of rendered chunks
+	private boolean concurrentDrawing;
+
+	/**
+	 *
+	 * @param budget The memory the images may use in bytes (the chunks on the camera can exceed it)
+	 */
+	public TileLayerCache(Map map, long budget) {
+		this.map = map;
+		this.tileSize = map.getTileSize();
+		this.chunkPixels = CHUNK_SIZE * tileSize;
+		map.setChunkShift(CHUNK_SHIFT);
+		this.chunkCols = map.getChunkCols();
+		this.chunkRows = (map.getHeight() + CHUNK_SIZE - 1) >> CHUNK_SHIFT;
+		this.maxResident = (int) Math.max(1, budget / (4L * chunkPixels * chunkPixels));
+		images = new BufferedImage[chunkCols * chunkRows];
+		stale = new boolean[chunkCols * chunkRows];
+		lastUse = new long[chunkCols * chunkRows];
+		map.addMapChangeListener(this);
+	}
+
+	/**
+	 * Submits the images of the static tiles of a part of the map, chunks which are missing or stale are rendered first
+	 * @param layer The layer of the images in the queue
+	 */
+	public void submit(RenderQueue queue, int layer, int minCol, int minRow, int maxCol, int maxRow) {
+		frame++;
+		for (int chunkRow = minRow >> CHUNK_SHIFT; chunkRow <= maxRow >> CHUNK_SHIFT; chunkRow++) {
+			for (int chunkCol = minCol >> CHUNK_SHIFT; chunkCol <= maxCol >> CHUNK_SHIFT; chunkCol++) {
+				int chunk = chunkRow * chunkCols + chunkCol;
+				if(images[chunk] == null || stale[chunk]) render(chunk);
+				lastUse[chunk] = frame;
+				queue.drawImage(layer, images[chunk], chunkCol * chunkPixels, chunkRow * chunkPixels, null);
+			}
+		}
+		evict();
+	}
+
+	private void render(int chunk) {
+		BufferedImage image = images[chunk];
+		if(image == null) resident.add(chunk);
+		if(image == null || concurrentDrawing) {
+			image = spare.isEmpty() ? new BufferedImage(chunkPixels, chunkPixels, BufferedImage.TYPE_INT_ARGB) : spare.remove(spare.size() - 1);
+			images[chunk] = image;
+		}
+		Graphics2D g = image.createGraphics();
+		g.setComposite(AlphaComposite.Clear);
+		g.fillRect(0, 0, chunkPixels, chunkPixels);
+		g.setComposite(AlphaComposite.SrcOver);
+
+		int minCol = (chunk % chunkCols) << CHUNK_SHIFT;
+		int minRow = (chunk / chunkCols) << CHUNK_SHIFT;
+		g.translate(-minCol * tileSize, -minRow * tileSize);
+		for (int col = minCol; col < Math.min(map.getWidth(), minCol + CHUNK_SIZE); col++) {
+			for (int row = minRow; row < Math.min(map.getHeight(), minRow + CHUNK_SIZE); row++) {
+				Tile tile = map.getTile(col, row);
+				int cell = map.getCell(col, row);
+				if(tile.isStatic()) {
+					tile.draw(g, col, row);
+					drawn.set(cell);
+				} else {
+					drawn.clear(cell);
+				}
+			}
+		}
+		g.dispose();
+		stale[chunk] = false;
+		renders++;
+	}
+
+	/**
+	 * Removes the least recently drawn images until the budget is met, the images of this frame stay
+	 */
+	private void evict() {
+		int excess = resident.size() - maxResident;
+		if(excess <= 0) return;
+
+		//Sorting the removable chunks by their last use, the frame is in the upper bits
+		if(candidates.length < resident.size()) candidates = new long[resident.size() * 2];
+		int count = 0;
+		for (int i = 0; i < resident.size(); i++) {
+			int chunk = resident.get(i);
+			if(lastUse[chunk] == frame) continue;
+			candidates[count++] = (lastUse[chunk] << 32) | chunk;
+		}
+		Arrays.sort(candidates, 0, count);
+		for (int i = 0; i < Math.min(excess, count); i++) {
+			int chunk = (int) candidates[i];
+			if(!concurrentDrawing && spare.size() < MAX_SPARE_IMAGES) spare.add(images[chunk]);
+			images[chunk] = null;
+		}
+
+		//Removing the evicted chunks from the resident ones
+		for (int i = resident.size() - 1; i >= 0; i--) {
+			if(images[resident.get(i)] == null) resident.removeSwap(i);
+		}
+	}
+
+	/**
+	 * Marks the dirty chunks whose static tiles changed, they are rendered again when they are drawn
+	 */
+	@Override
+	public void onMapChanged(Map map) {
+		IntList chunks = map.getDirtyChunks();
+		for (int i = 0; i < chunks.size(); i++) {
+			int chunk = chunks.get(i);
+			if(images[chunk] == null || stale[chunk]) continue;
+			stale[chunk] = hasStaticChange(chunk);
+		}
+	}
+
+	/**
+	 * @return true if a changed cell of the chunk was drawn into its image or is static now
+	 */
+	private boolean hasStaticChange(int chunk) {
+		int minCol = (chunk % chunkCols) << CHUNK_SHIFT;
+		int minRow = (chunk / chunkCols) << CHUNK_SHIFT;
+		for (int col = minCol; col < Math.min(map.getWidth(), minCol + CHUNK_SIZE); col++) {
+			for (int row = minRow; row < Math.min(map.getHeight(), minRow + CHUNK_SIZE); row++) {
+				if(map.isDirty(col, row) && (drawn.get(map.getCell(col, row)) || map.getTile(col, row).isStatic())) return true;
+			}
+		}
+		return false;
+	}
+
+	//------------------------------------Setters and Getters
+	/**
+	 *
+	 * @param concurrentDrawing true if the submitted images are drawn by another thread, e.g. from a FrameSnapshot
+	 */
+	public void setConcurrentDrawing(boolean concurrentDrawing) {
+		this.concurrentDrawing = concurrentDrawing;
+		if(concurrentDrawing) spare.clear();
+	}
+
+	public int getResidentCount() {
+		return resident.size();
+	}
+
+	/**
+	 *
+	 * @return The number of chunks rendered since the cache was created
+	 */
+	public int getRenderCount() {
+		return renders;
+	}
+}
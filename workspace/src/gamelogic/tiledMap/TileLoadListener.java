@@ -0,0 +1,5 @@
+package gamelogic.tiledMap;
+
+public interface TileLoadListener {
+	public void onTilesLoaded(int minCol, int minRow, int maxCol, int maxRow);
+}
@@ -2,19 +2,18 @@ package gamelogic.tiles;
 
 import java.awt.image.BufferedImage;
 
-import gameengine.hitbox.RectHitbox;
-import gamelogic.level.Level;
-
+/**
+ * The player wins by touching a flag (see Level.update())
+ */
 public class Flag extends Tile{
 
-	public Flag(float x, float y, int size, BufferedImage image, Level level) {
-		super(x, y, size, image, false, level);
-		hitbox = new RectHitbox(x*size, y*size, 30, 0, size-30, size);
+	public Flag(int id, int size, BufferedImage image) {
+		super(id, size, image, false);
+		setHitbox(30, 0, size-30, size);
 	}
-
+	
 	@Override
-	public void update(float tslf) {
-		if(hitbox.isIntersecting(Level.player.getHitbox())) level.onPlayerWin();
+	public int getContactType() {
+		return FLAG;
 	}
-	
 }
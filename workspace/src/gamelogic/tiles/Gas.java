@@ -1,28 +1,112 @@
 package gamelogic.tiles;
 
 import java.awt.image.BufferedImage;
-import gameengine.hitbox.RectHitbox;
-import gamelogic.level.Level;
 
+import gamelogic.tiledMap.Map;
+
+/**
+ * The intensity of gas depends on the number of gas tiles around it. It is set when gas is placed or removed
+ * (see Map.setId()), so drawing never has to count neighbours.
+ */
 public class Gas extends Tile {
     private int intensity;
+    private int[] intensityIds; //the id of the gas type of every intensity
     
-    public Gas(float x, float y, int size, BufferedImage image, Level level, int intensity) {
-        super(x, y, size, image, false, level);
+    /**
+     * 
+     * @param intensityIds The ids of the gas types by their intensity (see TileRegistry.getGasId())
+     */
+    public Gas(int id, int size, BufferedImage image, int intensity, int[] intensityIds) {
+        super(id, size, image, false);
         this.intensity = intensity;
-        this.hitbox = new RectHitbox(x*size, y*size, 0, 0, size, size);
+        this.intensityIds = intensityIds;
+        setHitbox(0, 0, size, size);
     }
     
+    /**
+     * A new gas cell changes the number of gas neighbours of the cells around it
+     */
+    @Override
+    public void onPlaced(Map map, int col, int row, Tile previous) {
+        shade(map, col, row);
+        if (!(previous instanceof Gas)) shadeNeighbours(map, col, row);
+    }
+
+    @Override
+    public void onRemoved(Map map, int col, int row, Tile next) {
+        if (!(next instanceof Gas)) shadeNeighbours(map, col, row);
+    }
+
+    /**
+     * Sets the intensity of the gas neighbours of a cell
+     */
+    public static void shadeNeighbours(Map map, int col, int row) {
+        for (int i = -1; i < 2; i++) {
+            for (int j = -1; j < 2; j++) {
+                if (j != 0 || i != 0) {
+                    if ((col + i) >= 0 && (col + i) < map.getWidth() && (row + j) >= 0 && (row + j) < map.getHeight()) {
+                        shade(map, col + i, row + j);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Switches a gas cell to the gas type matching the number of neighbouring gas tiles,
+     * the id is only written if the intensity changes
+     */
+    public static void shade(Map map, int col, int row) {
+        Tile tile = map.getTile(col, row);
+        if (!(tile instanceof Gas)) return;
+        Gas gas = (Gas) tile;
+
+        int adjacencyCount = 0;
+        for (int i = -1; i < 2; i++) {
+            for (int j = -1; j < 2; j++) {
+                if (j != 0 || i != 0) {
+                    if ((col + i) >= 0 && (col + i) < map.getWidth() && (row + j) >= 0 && (row + j) < map.getHeight()) {
+                        if (map.getTile(col + i, row + j) instanceof Gas) {
+                            adjacencyCount++;
+                        }
+                    }
+                }
+            }
+        }
+        int newIntensity = getIntensity(adjacencyCount);
+        if (newIntensity != gas.intensity) {
+            map.setId(col, row, gas.intensityIds[newIntensity]);
+        }
+    }
+
+    /**
+     * 
+     * @param adjacencyCount The number of gas tiles around a gas cell (0 - 8)
+     * @return The intensity of the gas in the cell
+     */
+    public static int getIntensity(int adjacencyCount) {
+        if (adjacencyCount == 8) {
+            return 2;
+        } else if (adjacencyCount > 5) {
+            return 1;
+        }
+        return 0;
+    }
+
     public int getIntensity() {
         return intensity;
     }
-    
-    public void setIntensity(int intensity) {
-        this.intensity = intensity;
+
+    /**
+     * Changed by the fluid simulation, drawn every frame
+     */
+    @Override
+    public boolean isStatic() {
+        return false;
     }
-    
-    public void update(float tslf, BufferedImage image) {
-        super.update(tslf);
-        super.setImage(image);
+
+    @Override
+    public int getContactType() {
+        return GAS;
     }
 }
\ No newline at end of file
@@ -1,9 +1,6 @@
 package gamelogic.tiles;
 
-import gameengine.hitbox.RectHitbox;
-import gameengine.loaders.Tileset;
-import gamelogic.GameResources;
-import gamelogic.level.Level;
+import java.awt.image.BufferedImage;
 
 public class Spikes extends Tile{
 
@@ -15,32 +12,36 @@ public class Spikes extends Tile{
 	private int offsetX = 25;
 	private int offsetY = 70;
 	
-	public Spikes(float x, float y, int size, int orientation, Level level) {
-		super(x, y, size, null, true, level);
-		offsetX = (int)(level.getLevelData().getTileSize()*0.1);
-		offsetY = (int)(level.getLevelData().getTileSize()/2);
-		Tileset tileset = GameResources.tileset;
+	/**
+	 * 
+	 * @param image The image of the tile, already pointing in the direction of the orientation
+	 */
+	public Spikes(int id, int size, BufferedImage image, int orientation) {
+		super(id, size, image, true);
+		offsetX = (int)(size*0.1);
+		offsetY = (int)(size/2);
 		
 		switch (orientation) {
 		case HORIZONTAL_UPWARDS:
-			hitbox = new RectHitbox(x*size , y*size, offsetX, offsetY, size - offsetX, size);
-			image = tileset.getImage("Spikes_upwards");
+			setHitbox(offsetX, offsetY, size - offsetX, size);
 			break;
 		case HORIZONTAL_DOWNWARDS:
-			hitbox = new RectHitbox(x*size , y*size, offsetX, 0, size - offsetX, size - offsetY);
-			image = tileset.getImage("Spikes_downwards");;
+			setHitbox(offsetX, 0, size - offsetX, size - offsetY);
 			break;
 		case VERTICAL_LEFTWARDS:
-			hitbox = new RectHitbox(x*size , y*size, offsetY, offsetX, size, size - offsetX);
-			image = tileset.getImage("Spikes_leftwards");;
+			setHitbox(offsetY, offsetX, size, size - offsetX);
 			break;
 		case VERTICAL_RIGHTWARDS:
-			hitbox = new RectHitbox(x*size , y*size, 0, offsetX, size - offsetY, size - offsetX);
-			image = tileset.getImage("Spikes_rightwards");;
+			setHitbox(0, offsetX, size - offsetY, size - offsetX);
 			break;
 
 		default:
 			break;
 		}
 	}
+
+	@Override
+	public int getContactType() {
+		return SPIKES;
+	}
 }
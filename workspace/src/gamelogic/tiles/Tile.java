@@ -1,68 +1,173 @@
 package gamelogic.tiles;
 
+import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.image.BufferedImage;
 
-import gameengine.GameObject;
+import gameengine.graphics.RenderQueue;
+import gameengine.hitbox.Hitbox;
 import gameengine.hitbox.RectHitbox;
-import gameengine.maths.Vector2D;
-import gamelogic.level.Level;
+import gamelogic.tiledMap.Map;
 
+/**
+ * The behaviour of one type of tile. Every type exists once per level and is shared by all cells
+ * of the map with its id (flyweight), so a tile knows nothing about its position.
+ * Positions and hitboxes are computed from the column and row of the cell.
+ */
 public class Tile{
 
-	protected Vector2D position;
+	//Used for the contact-detection, every tile belongs to one category
+	public static final int NO_CONTACT = 0;
+	public static final int WATER = 1;
+	public static final int GAS = 2;
+	public static final int SPIKES = 4;
+	public static final int FLOWER = 8;
+	public static final int FLAG = 16;
+
+	protected int id;
 	protected int size;
-	protected RectHitbox hitbox;
 	protected BufferedImage image;
 	protected boolean solid;
-	protected Level level;
 	
-	public Tile(float x, float y, int size, BufferedImage image, boolean solid, Level level) {
-		this.position = new Vector2D(x*size, y*size);
+	//Hitbox relative to the cell
+	protected boolean hasHitbox;
+	protected float hitboxOffsetX;
+	protected float hitboxOffsetY;
+	protected int hitboxWidth;
+	protected int hitboxHeight;
+	
+	/**
+	 * 
+	 * @param id The id of this type in the map
+	 * @param size The size of one tile
+	 * @param image The image scaled to the size (see Tileset.getImage(id, size)), null -> nothing is drawn
+	 */
+	public Tile(int id, int size, BufferedImage image, boolean solid) {
+		this.id = id;
 		this.size = size;
 		this.image = image;
 		this.solid = solid;
-		this.level = level;
 	}
 	
-	public void update (float tslf) {};
+	/**
+	 * Sets the hitbox of all cells of this type, like the constructor of RectHitbox
+	 * @param width The width including the offset
+	 * @param height The height including the offset
+	 */
+	protected void setHitbox(float offsetX, float offsetY, int width, int height) {
+		this.hasHitbox = true;
+		this.hitboxOffsetX = offsetX;
+		this.hitboxOffsetY = offsetY;
+		this.hitboxWidth = (int) (width - offsetX);
+		this.hitboxHeight = (int) (height - offsetY);
+	}
+	
+	/**
+	 * Called every tick for the cells of dynamic types (see isDynamic())
+	 * @param map The map the cell belongs to
+	 */
+	public void update(Map map, int col, int row, float tslf) {}
+	
+	/**
+	 * Called by Map.setId() after a cell was changed to this type
+	 * @param previous The type the cell had before
+	 */
+	public void onPlaced(Map map, int col, int row, Tile previous) {}
 	
-	public void draw (Graphics g) {
-		if(image != null) g.drawImage(image, (int)position.x, (int)position.y, size, size, null);
+	/**
+	 * Called by Map.setId() after a cell of this type was changed to another type
+	 * @param next The type the cell has now
+	 */
+	public void onRemoved(Map map, int col, int row, Tile next) {}
+	
+	public void draw (Graphics g, int col, int row) {
+		if(image != null) g.drawImage(image, col * size, row * size, null);
 		
-		if(hitbox != null) hitbox.draw(g);		
+		if(hasHitbox && Hitbox.SHOW_HITBOXES) {
+			g.setColor(Color.GREEN);
+			g.drawRect((int)getHitboxX(col), (int)getHitboxY(row), hitboxWidth, hitboxHeight);
+		}
 	}
 	
-	// Pre: newIm != void
-	// Post: Sets new image 
-	public void setImage(BufferedImage newIm){
-		image = newIm;
+	/**
+	 * Submits the same commands as draw() to a render queue
+	 */
+	public void submit(RenderQueue queue, int layer, int col, int row) {
+		if(image != null) queue.drawImage(layer, image, col * size, row * size, null);
+		
+		if(hasHitbox && Hitbox.SHOW_HITBOXES) {
+			queue.drawRect(layer, Color.GREEN, (int)getHitboxX(col), (int)getHitboxY(row), hitboxWidth, hitboxHeight, null);
+		}
+	}
+	
+	/**
+	 * 
+	 * @return true if the hitbox of the cell intersects the given hitbox
+	 */
+	public boolean isIntersecting(int col, int row, RectHitbox hitbox) {
+		if(!hasHitbox) return false;
+		float x = getHitboxX(col);
+		float y = getHitboxY(row);
+		return x < hitbox.getX() + hitbox.getWidth() && x + hitboxWidth > hitbox.getX() && y < hitbox.getY() + hitbox.getHeight() && y + hitboxHeight > hitbox.getY();
 	}
 	
 	
 	//------------------------------------Getters
+	/**
+	 * 
+	 * @return The contact category of this tile, used as a bit in the contact mask of a PhysicsObject
+	 */
+	public int getContactType() {
+		return NO_CONTACT;
+	}
+	
+	/**
+	 * 
+	 * @return true if the cells of this type have to be updated every tick
+	 */
+	public boolean isDynamic() {
+		return false;
+	}
+	
+	/**
+	 * 
+	 * @return true if the cells of this type are drawn once into the cache of the static tiles (see TileLayerCache),
+	 * types which change often are drawn every frame
+	 */
+	public boolean isStatic() {
+		return image != null && !isDynamic();
+	}
+	
+	public int getId() {
+		return id;
+	}
+	
 	public boolean isSolid() {
 		return solid;
 	}
 	
-	public RectHitbox getHitbox() {
-		return hitbox;
+	public BufferedImage getImage() {
+		return image;
+	}
+	
+	public boolean hasHitbox() {
+		return hasHitbox;
 	}
 	
-	public float getX() {
-		return position.x;
+	public float getHitboxX(int col) {
+		return col * size + hitboxOffsetX;
 	}
 	
-	public float getY() {
-		return position.y;
+	public float getHitboxY(int row) {
+		return row * size + hitboxOffsetY;
 	}
 	
-	public int getRow() {
-		return (int)(position.y/size);
+	public int getHitboxWidth() {
+		return hitboxWidth;
 	}
 	
-	public int getCol() {
-		return (int)(position.x/size);
+	public int getHitboxHeight() {
+		return hitboxHeight;
 	}
 	
 	public int getSize() {
@@ -0,0 +1,17 @@
+package gamelogic.tiles;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Creates the tile type of one behaviour (see TileRegistry)
+ */
+public interface TileFactory {
+	/**
+	 * 
+	 * @param id The id of the type in the map
+	 * @param size The size of one tile
+	 * @param image The image of the id in the tileset, can be null
+	 * @param parameter The parameter of the id in the tileset, "" -> none
+	 */
+	public Tile create(int id, int size, BufferedImage image, String parameter);
+}
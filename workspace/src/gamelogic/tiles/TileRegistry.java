@@ -0,0 +1,290 @@
+package gamelogic.tiles;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import gameengine.loaders.Tileset;
+
+/**
+ * The tile types defined by the tileset (id, name, image, behaviour and parameter of every line of tileset.txt),
+ * used by the game and the map editor. The behaviour names are mapped to factories, new types only need a new
+ * line in the tileset and new behaviours a call of registerBehaviour().
+ * All lookups by id are array accesses.
+ */
+public class TileRegistry {
+
+	//Behaviours known without registering
+	public static final String AIR = "air";
+	public static final String SOLID = "solid";
+	public static final String SPIKES = "spikes";
+	public static final String FLAG = "flag";
+	public static final String FLOWER = "flower";
+	public static final String GAS = "gas";
+	public static final String WATER = "water";
+	public static final String ENEMY = "enemy"; //no tile, the cell is air and an enemy is spawned
+	private static final List<String> SPIKE_DIRECTIONS = Arrays.asList("upwards", "downwards", "leftwards", "rightwards");
+
+	private Map<String, TileFactory> factories = new HashMap<String, TileFactory>();
+
+	//indexed by the id, null -> no tile with this id
+	private String[] names;
+	private BufferedImage[] images;
+	private String[] behaviours;
+	private String[] parameters;
+	private Map<String, Integer> ids = new HashMap<String, Integer>(); //by name
+	private Tileset tileset;
+
+	//Types found by their behaviour and parameter, so the fluids don't depend on the names in the tileset, -1 -> none
+	private int airId = -1;
+	private int[] waterIds = { -1, -1, -1, -1 }; //by fullness (see Water)
+	private int[] gasIds = { -1, -1, -1 }; //by intensity, shared with the gas tiles (see Gas.shade())
+
+	public TileRegistry(Tileset tileset) {
+		this.tileset = tileset;
+		int idCount = 0;
+		for (Integer id : tileset.getIdImages().keySet()) {
+			idCount = Math.max(idCount, id + 1);
+		}
+		names = new String[idCount];
+		images = new BufferedImage[idCount];
+		behaviours = new String[idCount];
+		parameters = new String[idCount];
+		for (Integer id : tileset.getIdImages().keySet()) {
+			if(id < 0) continue;
+			names[id] = tileset.getName(id);
+			images[id] = tileset.getImage(id);
+			behaviours[id] = tileset.getBehaviour(id);
+			parameters[id] = tileset.getParameter(id);
+			ids.put(names[id], id);
+		}
+		for (int id = 0; id < idCount; id++) {
+			if(names[id] != null) validateParameter(id, tileset.getLine(id));
+		}
+		findFluidIds();
+		registerDefaultBehaviours();
+	}
+
+	/**
+	 * Finds the first air type and the water and gas type of every fullness and intensity
+	 * @throws IllegalArgumentException If the tileset has gas, but not of every intensity
+	 */
+	private void findFluidIds() {
+		boolean hasGas = false;
+		for (int id = 0; id < names.length; id++) {
+			if(names[id] == null) continue;
+			if(AIR.equals(behaviours[id]) && airId == -1) {
+				airId = id;
+			} else if(WATER.equals(behaviours[id])) {
+				int fullness = Integer.parseInt(parameters[id]);
+				if(fullness >= 0 && fullness < waterIds.length && waterIds[fullness] == -1) waterIds[fullness] = id;
+			} else if(GAS.equals(behaviours[id])) {
+				int intensity = Integer.parseInt(parameters[id]);
+				if(intensity >= 0 && intensity < gasIds.length && gasIds[intensity] == -1) gasIds[intensity] = id;
+				hasGas = true;
+			}
+		}
+		if(!hasGas) return;
+		for (int intensity = 0; intensity < gasIds.length; intensity++) {
+			if(gasIds[intensity] == -1) {
+				throw new IllegalArgumentException("The tileset has no tile with the behaviour " + GAS + " and the intensity " + intensity
+						+ ", gas needs the intensities 0 to " + (gasIds.length - 1));
+			}
+		}
+	}
+
+	/**
+	 * Checks the parameter of a tile with a default behaviour, so a wrong line in the tileset is reported
+	 * when it is loaded instead of crashing the factory later
+	 * @param line The line of the tile in the tileset, used in the message
+	 * @throws IllegalArgumentException If the parameter doesn't fit the behaviour
+	 */
+	private void validateParameter(int id, int line) {
+		String behaviour = behaviours[id];
+		String parameter = parameters[id] == null ? "" : parameters[id];
+		parameters[id] = parameter;
+		if(FLOWER.equals(behaviour) || GAS.equals(behaviour) || WATER.equals(behaviour)) {
+			try {
+				Integer.parseInt(parameter);
+				return;
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Tile " + id + " in line " + line + " of the tileset: the behaviour " + behaviour
+						+ " needs a number as parameter, found \"" + parameter + "\"");
+			}
+		}
+		if(SPIKES.equals(behaviour) && !SPIKE_DIRECTIONS.contains(parameter)) {
+			throw new IllegalArgumentException("Tile " + id + " in line " + line + " of the tileset: the behaviour " + behaviour
+					+ " needs one of " + SPIKE_DIRECTIONS + " as parameter, found \"" + parameter + "\"");
+		}
+	}
+
+	/**
+	 * Adds a behaviour which can be used in the tileset
+	 * @param behaviour The name used in the tileset
+	 */
+	public void registerBehaviour(String behaviour, TileFactory factory) {
+		factories.put(behaviour, factory);
+	}
+
+	private void registerDefaultBehaviours() {
+		registerBehaviour(AIR, new TileFactory() {
+			public Tile create(int id, int size, BufferedImage image, String parameter) {
+				return new Tile(id, size, null, false);
+			}
+		});
+		registerBehaviour(ENEMY, factories.get(AIR));
+		registerBehaviour(SOLID, new TileFactory() {
+			public Tile create(int id, int size, BufferedImage image, String parameter) {
+				return new SolidTile(id, size, image);
+			}
+		});
+		registerBehaviour(SPIKES, new TileFactory() {
+			public Tile create(int id, int size, BufferedImage image, String parameter) {
+				switch (parameter) {
+				case "upwards":
+					return new Spikes(id, size, image, Spikes.HORIZONTAL_UPWARDS);
+				case "leftwards":
+					return new Spikes(id, size, image, Spikes.VERTICAL_LEFTWARDS);
+				case "rightwards":
+					return new Spikes(id, size, image, Spikes.VERTICAL_RIGHTWARDS);
+				default:
+					return new Spikes(id, size, image, Spikes.HORIZONTAL_DOWNWARDS);
+				}
+			}
+		});
+		registerBehaviour(FLAG, new TileFactory() {
+			public Tile create(int id, int size, BufferedImage image, String parameter) {
+				return new Flag(id, size, image);
+			}
+		});
+		registerBehaviour(FLOWER, new TileFactory() {
+			public Tile create(int id, int size, BufferedImage image, String parameter) {
+				return new Flower(id, size, image, Integer.parseInt(parameter));
+			}
+		});
+		registerBehaviour(GAS, new TileFactory() {
+			public Tile create(int id, int size, BufferedImage image, String parameter) {
+				return new Gas(id, size, image, Integer.parseInt(parameter), gasIds);
+			}
+		});
+		registerBehaviour(WATER, new TileFactory() {
+			public Tile create(int id, int size, BufferedImage image, String parameter) {
+				return new Water(id, size, image, Integer.parseInt(parameter));
+			}
+		});
+	}
+
+	/**
+	 * Creates the tile types of a level, shared by all cells of its map.
+	 * Ids without a line in the tileset or with an unknown behaviour are air.
+	 * @param size The size of one tile, the images of the types are scaled to it
+	 * @return The types indexed by their id
+	 */
+	public Tile[] createTypes(int size) {
+		Tile[] types = new Tile[Math.max(1, names.length)];
+		for (int id = 0; id < types.length; id++) {
+			TileFactory factory = id < names.length && behaviours[id] != null ? factories.get(behaviours[id]) : null;
+			if(factory == null) factory = factories.get(AIR);
+			types[id] = factory.create(id, size, id < names.length ? getImage(id, size) : null, id < names.length ? parameters[id] : "");
+		}
+		return types;
+	}
+
+	//------------------------------------Getters
+	/**
+	 * 
+	 * @return The highest id + 1
+	 */
+	public int getIdCount() {
+		return names.length;
+	}
+
+	/**
+	 * 
+	 * @return The id of the tile with the name in the tileset, -1 -> no tile with this name
+	 */
+	public int getId(String name) {
+		Integer id = ids.get(name);
+		return id == null ? -1 : id;
+	}
+
+	public boolean isDefined(int id) {
+		return id >= 0 && id < names.length && names[id] != null;
+	}
+
+	/**
+	 * 
+	 * @return true if the id spawns an enemy instead of a tile
+	 */
+	public boolean isEnemy(int id) {
+		return isDefined(id) && ENEMY.equals(behaviours[id]);
+	}
+
+	/**
+	 * 
+	 * @return true if the id is a type of gas
+	 */
+	public boolean isGas(int id) {
+		return isDefined(id) && GAS.equals(behaviours[id]);
+	}
+
+	public String getName(int id) {
+		return names[id];
+	}
+
+	public BufferedImage getImage(int id) {
+		return images[id];
+	}
+
+	/**
+	 * 
+	 * @return The image scaled to the size, null -> no image
+	 */
+	public BufferedImage getImage(int id, int size) {
+		return images[id] == null ? null : tileset.getImage(id, size);
+	}
+
+	public String getBehaviour(int id) {
+		return behaviours[id];
+	}
+
+	public String getParameter(int id) {
+		return parameters[id];
+	}
+
+	/**
+	 * 
+	 * @return The id of the first type with the air behaviour, -1 -> none
+	 */
+	public int getAirId() {
+		return airId;
+	}
+
+	/**
+	 * 
+	 * @param fullness The parameter of the water behaviour: 3 -> full, 2 -> half, 1 -> quarter, 0 -> falling
+	 * @return The id of the water type with the fullness, -1 -> none
+	 */
+	public int getWaterId(int fullness) {
+		return waterIds[fullness];
+	}
+
+	/**
+	 * 
+	 * @param intensity The parameter of the gas behaviour (0 - 2)
+	 * @return The id of the gas type with the intensity, -1 -> none
+	 */
+	public int getGasId(int intensity) {
+		return gasIds[intensity];
+	}
+
+	/**
+	 * 
+	 * @return A hash of the names, behaviours and parameters of all ids, it changes when the tileset defines the tiles differently
+	 */
+	public int getDefinitionHash() {
+		return 31 * (31 * Arrays.hashCode(names) + Arrays.hashCode(behaviours)) + Arrays.hashCode(parameters);
+	}
+}
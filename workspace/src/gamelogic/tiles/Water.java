@@ -2,23 +2,29 @@ package gamelogic.tiles;
 
 import java.awt.image.BufferedImage;
 
-import gameengine.hitbox.RectHitbox;
-import gamelogic.level.Level;
-
 public class Water extends Tile {
     private int fullness;
     
-    public Water(float x, float y, int size, BufferedImage image, Level level, int fullness) {
-        super(x, y, size, image, false, level);
+    public Water(int id, int size, BufferedImage image, int fullness) {
+        super(id, size, image, false);
         this.fullness = fullness;
-        this.hitbox = new RectHitbox(x*size, y*size, 0, 0, size, size);
+        setHitbox(0, 0, size, size);
     }
     
     public int getFullness() {
         return fullness;
     }
-    
-    public void setIntensity(int fullness) {
-        this.fullness = fullness;
+
+    /**
+     * Changed by the fluid simulation, drawn every frame
+     */
+    @Override
+    public boolean isStatic() {
+        return false;
+    }
+
+    @Override
+    public int getContactType() {
+        return WATER;
     }
 }
\ No newline at end of file
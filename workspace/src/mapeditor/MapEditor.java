@@ -9,8 +9,7 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.util.ArrayList;
 
 import javax.swing.JFileChooser;
 
@@ -18,9 +17,9 @@ import gameengine.GameBase;
 import gameengine.graphics.Camera;
 import gameengine.input.KeyboardInputManager;
 import gameengine.input.MouseInputManager;
-import gameengine.loaders.Tileset;
 import gameengine.maths.Vector2D;
 import gamelogic.GameResources;
+import gamelogic.tiles.TileRegistry;
 
 class MapEditor extends GameBase{
 
@@ -34,6 +33,7 @@ class MapEditor extends GameBase{
 	private Vector2D oldCameraPosition; //saves position of the camera when mouse is dragged
 
 	private EditorTiledMap map;
+	private TileRegistry tileRegistry;
 
 	private int screenSplit = 1000;
 
@@ -58,21 +58,15 @@ class MapEditor extends GameBase{
 		oldMousePosition = new Vector2D();
 		oldCameraPosition = new Vector2D();
 
-		Tileset tileset = GameResources.tileset;
+		tileRegistry = GameResources.tileRegistry;
 
-		Map<Integer, BufferedImage> images = tileset.getIdImages();
-		PaletteItem[] paletteItems = new PaletteItem[images.size()+1];
-		
-		int i = 0;
-		for(Entry<Integer, BufferedImage> entry: images.entrySet()) {
-			
-			paletteItems[i] = new PaletteItem("item :"+entry.getKey(), entry.getKey(), entry.getValue());
-			i++;
-			if(i==8){
-				paletteItems[8] = new PaletteItem("Enemy", 8, GameResources.enemy);
-				i++;
-			}
+		//One item for every tile of the tileset, in the order of the ids
+		ArrayList<PaletteItem> items = new ArrayList<PaletteItem>();
+		for (int id = 0; id < tileRegistry.getIdCount(); id++) {
+			if(!tileRegistry.isDefined(id)) continue;
+			items.add(new PaletteItem(tileRegistry.getName(id), id, getImage(id, Palette.TILE_SIZE)));
 		}
+		PaletteItem[] paletteItems = items.toArray(new PaletteItem[items.size()]);
 		
 		
 		paletteTiles = new Palette(screenSplit + 15, 10, paletteItems);
@@ -88,6 +82,17 @@ class MapEditor extends GameBase{
 		jFileChooser.setCurrentDirectory(new File("/workspaces/platformer/workspace/maps"));
 	}
 
+	/**
+	 * 
+	 * @param size The size the image is scaled to
+	 * @return The image shown for a value of the map file, null -> no tile with this id
+	 */
+	private BufferedImage getImage(int id, int size) {
+		if(!tileRegistry.isDefined(id)) return null;
+		if(tileRegistry.isEnemy(id)) return GameResources.getEnemy(size); // enemies are not in the tileset
+		return tileRegistry.getImage(id, size);
+	}
+
 	public EditorTiledMap createNewMap(int width, int height, int tileSize) {
 		EditorTile[][] tiles = new EditorTile[width][height];
 		for (int x = 0; x < width; x++) {
@@ -112,12 +117,7 @@ class MapEditor extends GameBase{
 			String[] values = bufferedReader.readLine().split(",");
 			for (int x = 0; x < width; x++) {
 				int value = Integer.parseInt(values[x]);
-				BufferedImage img =null;
-				for(int i=0; i<paletteTiles.getPaletteItems().length; i++) {
-					if(paletteTiles.getPaletteItems()[i].getValue() == value) {
-						img = paletteTiles.getPaletteItems()[i].getImage();
-					}
-				}
+				BufferedImage img = getImage(value, tileSize);
 				tiles[x][y] = new EditorTile(x * tileSize, y * tileSize, tileSize, value, img);
 				//System.out.println(value);
 				//System.out.println(paletteTiles.getPaletteItems()[value].getName());
@@ -214,7 +214,7 @@ class MapEditor extends GameBase{
 					if(MouseInputManager.isButtonDown(MouseEvent.BUTTON1)) {
 						mouseOver.setValue(paletteTiles.getSelectedPaletteItem().getValue());
 						System.out.println(paletteTiles.getSelectedPaletteItem().getValue()+" "+paletteTiles.getSelectedPaletteItem().getName());
-						mouseOver.setImage(paletteTiles.getSelectedPaletteItem().getImage());
+						mouseOver.setImage(getImage(paletteTiles.getSelectedPaletteItem().getValue(), map.getTileSize()));
 
 						if(!changed) {
 							window.setTitle(window.getTitle() + "*");
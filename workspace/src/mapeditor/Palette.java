@@ -10,11 +10,13 @@ import gameengine.maths.Vector2D;
 
 class Palette {
 
+	public static final int TILE_SIZE = 50;
+
 	private Vector2D position;
 	private int width;
 	private int height;
 	private PaletteItem[] paletteItems;
-	private int tileSize = 50;
+	private int tileSize = TILE_SIZE;
 	private int tilesPerRow = 5;
 
 	private int selectedIndex = -1;